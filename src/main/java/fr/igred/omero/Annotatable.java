@@ -23,6 +23,8 @@ import fr.igred.omero.annotations.FileAnnotation;
 import fr.igred.omero.annotations.MapAnnotation;
 import fr.igred.omero.annotations.RatingAnnotation;
 import fr.igred.omero.annotations.Table;
+import fr.igred.omero.annotations.TableCursor;
+import fr.igred.omero.annotations.TableHandle;
 import fr.igred.omero.annotations.TagAnnotation;
 import fr.igred.omero.client.Browser;
 import fr.igred.omero.client.Client;
@@ -86,10 +88,14 @@ public interface Annotatable extends RemoteObject {
     default <A extends AnnotationData> void link(DataManager dm, A annotation)
     throws ServiceException, AccessException, ExecutionException {
         String error = String.format("Cannot add %s to %s", annotation, this);
-        AnnotationData ann = call(dm.getDMFacility(),
-                                  d -> d.attachAnnotation(dm.getCtx(), annotation, asDataObject()),
-                                  error);
-        annotation.setId(ann.getId());
+        try {
+            AnnotationData ann = call(dm.getDMFacility(),
+                                      d -> d.attachAnnotation(dm.getCtx(), annotation, asDataObject()),
+                                      error);
+            annotation.setId(ann.getId());
+        } finally {
+            dm.invalidateCache(Arrays.asList(asDataObject().asIObject(), annotation.asIObject()));
+        }
     }
 
 
@@ -447,7 +453,47 @@ public interface Annotatable extends RemoteObject {
 
 
     /**
-     * Gets all tables linked to the object in OMERO.
+     * Gets a range of rows from a certain table linked to the object in OMERO, optionally restricted to some columns.
+     *
+     * @param dm       The data manager.
+     * @param fileId   FileId of the table researched.
+     * @param firstRow The index of the first row.
+     * @param lastRow  The index of the last row (included, capped to the last row of the table).
+     * @param columns  The indices of the columns to read (all columns if none are specified).
+     *
+     * @return See above.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    Table getTable(DataManager dm, Long fileId, long firstRow, long lastRow, int... columns)
+    throws ServiceException, AccessException, ExecutionException;
+
+
+    /**
+     * Gets a cursor over the rows of a certain table linked to the object in OMERO, which loads the rows page by page
+     * on demand.
+     *
+     * @param dm       The data manager.
+     * @param fileId   FileId of the table researched.
+     * @param pageSize The maximum number of rows loaded at once.
+     * @param columns  The indices of the columns to read (all columns if none are specified).
+     *
+     * @return See above.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    TableCursor getTableCursor(DataManager dm, Long fileId, int pageSize, int... columns)
+    throws ServiceException, AccessException, ExecutionException;
+
+
+    /**
+     * Lists the tables linked to the object in OMERO, without loading their data.
+     * <p>The returned handles provide the name, ID, number of rows and columns of each table, and only load the data
+     * on first access (see {@link TableHandle}).</p>
      *
      * @param dm The data manager.
      *
@@ -457,18 +503,48 @@ public interface Annotatable extends RemoteObject {
      * @throws AccessException    Cannot access data.
      * @throws ExecutionException A Facility can't be retrieved or instantiated.
      */
-    default List<Table> getTables(DataManager dm)
+    default List<TableHandle> listTables(DataManager dm)
     throws ServiceException, AccessException, ExecutionException {
-        Collection<FileAnnotationData> files = call(dm.getTablesFacility(),
+        String error = "Cannot get tables from " + this;
+
+        TablesFacility tablesFacility = dm.getTablesFacility();
+        Collection<FileAnnotationData> files = call(tablesFacility,
                                                     tf -> tf.getAvailableTables(dm.getCtx(),
                                                                                 asDataObject()),
-                                                    "Cannot get tables from " + this);
+                                                    error);
 
-        List<Table> tables = new ArrayList<>(files.size());
+        List<TableHandle> tables = new ArrayList<>(files.size());
         for (FileAnnotationData file : files) {
-            Table table = getTable(dm, file.getFileID());
-            table.setId(file.getId());
-            tables.add(table);
+            long fileId = file.getFileID();
+            TableData info = call(tablesFacility,
+                                  tf -> tf.getTableInfo(dm.getCtx(), fileId),
+                                  error);
+            Objects.requireNonNull(info).setOriginalFileId(fileId);
+            tables.add(new TableHandle(dm, info, file.getDescription(), file.getId()));
+        }
+        return tables;
+    }
+
+
+    /**
+     * Gets all tables linked to the object in OMERO.
+     *
+     * @param dm The data manager.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    default List<Table> getTables(DataManager dm)
+    throws ServiceException, AccessException, ExecutionException {
+        List<TableHandle> handles = listTables(dm);
+
+        List<Table> tables = new ArrayList<>(handles.size());
+        for (TableHandle handle : handles) {
+            handle.load();
+            tables.add(handle);
         }
 
         return tables;
@@ -26,6 +26,7 @@ import fr.igred.omero.annotations.MapAnnotationWrapper;
 import fr.igred.omero.annotations.RatingAnnotation;
 import fr.igred.omero.annotations.RatingAnnotationWrapper;
 import fr.igred.omero.annotations.Table;
+import fr.igred.omero.annotations.TableCursor;
 import fr.igred.omero.annotations.TableWrapper;
 import fr.igred.omero.annotations.TagAnnotation;
 import fr.igred.omero.annotations.TagAnnotationWrapper;
@@ -362,7 +363,8 @@ public abstract class AnnotatableWrapper<T extends DataObject> extends ObjectWra
 
 
     /**
-     * Gets a certain table linked to the object in OMERO.
+     * Gets the metadata (name, ID, number of rows and columns) of a table linked to the object in OMERO, without its
+     * data.
      *
      * @param dm     The data manager.
      * @param fileId FileId of the table researched.
@@ -373,17 +375,11 @@ public abstract class AnnotatableWrapper<T extends DataObject> extends ObjectWra
      * @throws AccessException    Cannot access data.
      * @throws ExecutionException A Facility can't be retrieved or instantiated.
      */
-    @Override
-    public Table getTable(DataManager dm, Long fileId)
+    private Table getTableInfo(DataManager dm, Long fileId)
     throws ServiceException, AccessException, ExecutionException {
         TableData info = call(dm.getTablesFacility(),
                               tf -> tf.getTableInfo(dm.getCtx(), fileId),
                               "Cannot get table from " + this);
-        long nRows = info.getNumberOfRows();
-        TableData table = call(dm.getTablesFacility(),
-                               tf -> tf.getTable(dm.getCtx(), fileId,
-                                                 0, nRows - 1),
-                               "Cannot get table from " + this);
         FileAnnotationData f = call(dm.getTablesFacility(),
                                     tf -> tf.getAvailableTables(dm.getCtx(), data)
                                             .stream()
@@ -391,15 +387,85 @@ public abstract class AnnotatableWrapper<T extends DataObject> extends ObjectWra
                                             .findFirst()
                                             .orElse(new FileAnnotationData(new FileAnnotationI())),
                                     "Cannot get table name from " + this);
-        String name   = f.getDescription();
-        long   id     = f.getId();
-        Table  result = new TableWrapper(Objects.requireNonNull(table), name);
+        Table result = new TableWrapper(Objects.requireNonNull(info), f.getDescription());
         result.setOriginalFileId(fileId);
-        result.setId(id);
+        result.setId(f.getId());
         return result;
     }
 
 
+    /**
+     * Gets a certain table linked to the object in OMERO.
+     *
+     * @param dm     The data manager.
+     * @param fileId FileId of the table researched.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    @Override
+    public Table getTable(DataManager dm, Long fileId)
+    throws ServiceException, AccessException, ExecutionException {
+        return getTable(dm, fileId, 0, Long.MAX_VALUE);
+    }
+
+
+    /**
+     * Gets a range of rows from a certain table linked to the object in OMERO, optionally restricted to some columns.
+     *
+     * @param dm       The data manager.
+     * @param fileId   FileId of the table researched.
+     * @param firstRow The index of the first row.
+     * @param lastRow  The index of the last row (included, capped to the last row of the table).
+     * @param columns  The indices of the columns to read (all columns if none are specified).
+     *
+     * @return See above.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    @Override
+    public Table getTable(DataManager dm, Long fileId, long firstRow, long lastRow, int... columns)
+    throws ServiceException, AccessException, ExecutionException {
+        Table info = getTableInfo(dm, fileId);
+        long  last = Math.min(lastRow, info.getNumberOfRows() - 1);
+        TableData table = call(dm.getTablesFacility(),
+                               tf -> tf.getTable(dm.getCtx(), fileId,
+                                                 firstRow, last, columns),
+                               "Cannot get table from " + this);
+        Table result = new TableWrapper(Objects.requireNonNull(table), info.getName());
+        result.setOriginalFileId(fileId);
+        result.setId(info.getId());
+        return result;
+    }
+
+
+    /**
+     * Gets a cursor over the rows of a certain table linked to the object in OMERO, which loads the rows page by page
+     * on demand.
+     *
+     * @param dm       The data manager.
+     * @param fileId   FileId of the table researched.
+     * @param pageSize The maximum number of rows loaded at once.
+     * @param columns  The indices of the columns to read (all columns if none are specified).
+     *
+     * @return See above.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    @Override
+    public TableCursor getTableCursor(DataManager dm, Long fileId, int pageSize, int... columns)
+    throws ServiceException, AccessException, ExecutionException {
+        return new TableCursor(dm, getTableInfo(dm, fileId), pageSize, columns);
+    }
+
+
     /**
      * Uploads a file and links it to the object
      *
@@ -415,10 +481,14 @@ public abstract class AnnotatableWrapper<T extends DataObject> extends ObjectWra
     public FileAnnotation addFile(DataManager dm, File file)
     throws ExecutionException, InterruptedException {
         String name = file.getName();
-        FileAnnotationData ann = dm.getDMFacility()
-                                   .attachFile(dm.getCtx(), file, null, "", name, data)
-                                   .get();
-        return new FileAnnotationWrapper(ann);
+        try {
+            FileAnnotationData ann = dm.getDMFacility()
+                                       .attachFile(dm.getCtx(), file, null, "", name, data)
+                                       .get();
+            return new FileAnnotationWrapper(ann);
+        } finally {
+            dm.invalidateCache(singletonList(data.asIObject()));
+        }
     }
 
 
@@ -441,14 +511,19 @@ public abstract class AnnotatableWrapper<T extends DataObject> extends ObjectWra
     throws ExecutionException, InterruptedException, AccessException, ServiceException {
         List<FileAnnotation> files = getFileAnnotations(client);
 
-        FileAnnotationData uploaded = client.getDMFacility()
-                                            .attachFile(client.getCtx(),
-                                                        file,
-                                                        null,
-                                                        "",
-                                                        file.getName(),
-                                                        data)
-                                            .get();
+        FileAnnotationData uploaded;
+        try {
+            uploaded = client.getDMFacility()
+                             .attachFile(client.getCtx(),
+                                         file,
+                                         null,
+                                         "",
+                                         file.getName(),
+                                         data)
+                             .get();
+        } finally {
+            client.invalidateCache(singletonList(data.asIObject()));
+        }
         FileAnnotation annotation = new FileAnnotationWrapper(uploaded);
 
         files.removeIf(fileAnnotation -> !fileAnnotation.getFileName().equals(annotation.getFileName()));
@@ -24,6 +24,7 @@ import fr.igred.omero.exception.ServiceException;
 import fr.igred.omero.meta.Experimenter;
 import fr.igred.omero.meta.ExperimenterWrapper;
 import omero.gateway.model.DataObject;
+import omero.gateway.util.PojoMapper;
 
 import java.sql.Timestamp;
 import java.util.Collection;
@@ -31,7 +32,6 @@ import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
 
-import static fr.igred.omero.exception.ExceptionHandler.call;
 import static java.lang.String.format;
 import static java.util.Comparator.comparing;
 import static java.util.stream.Collectors.toList;
@@ -183,9 +183,7 @@ public abstract class ObjectWrapper<T extends DataObject> implements RemoteObjec
     @SuppressWarnings("unchecked")
     public void saveAndUpdate(DataManager dm)
     throws ExecutionException, ServiceException, AccessException {
-        data = (T) call(dm.getDMFacility(),
-                        d -> d.saveAndReturnObject(dm.getCtx(), data),
-                        "Cannot save and update object.");
+        data = (T) PojoMapper.asDataObject(dm.save(data.asIObject()));
     }
 
 
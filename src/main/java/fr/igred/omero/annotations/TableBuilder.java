@@ -38,6 +38,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Array;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -65,8 +66,11 @@ public class TableBuilder {
     /** Information of each column (Name, Type) */
     private TableDataColumn[] columns;
 
-    /** Content of the table */
-    private Object[][] data;
+    /**
+     * Content of the table: one array per column (double[] for Double columns, long[] for Long columns), which may
+     * have more capacity than the number of rows
+     */
+    private Object[] data;
 
     /** Number of column in the table */
     private int columnCount;
@@ -88,12 +92,29 @@ public class TableBuilder {
      * @param name        Name of the table.
      */
     public TableBuilder(int columnCount, String name) {
+        this(columnCount, name, 0);
+    }
+
+
+    /**
+     * Constructor of the class TableBuilder, reserving space for the expected number of rows.
+     * <p>The row count is still 0: it grows as rows are added from results tables, or through
+     * {@link #setRowCount(int)}, without reallocating the columns until the expected number of rows is exceeded.</p>
+     *
+     * @param columnCount  Number of column in the table.
+     * @param name         Name of the table.
+     * @param expectedRows Expected number of rows in the table.
+     */
+    public TableBuilder(int columnCount, String name, int expectedRows) {
         this.columnCount = columnCount;
         this.name        = name;
         columns          = new TableDataColumn[columnCount];
-        data             = new Object[columnCount][0];
+        data             = new Object[columnCount];
         rowCount         = 0;
         row              = 0;
+        for (int j = 0; j < columnCount; j++) {
+            data[j] = new Object[Math.max(0, expectedRows)];
+        }
     }
 
 
@@ -105,10 +126,14 @@ public class TableBuilder {
     public TableBuilder(TableData table) {
         this.columns = table.getColumns();
         columnCount  = columns.length;
-        data         = table.getData();
+        data         = new Object[columnCount];
         rowCount     = (int) table.getNumberOfRows();
         row          = rowCount;
         name         = null;
+        Object[][] values = table.getData();
+        for (int j = 0; j < columnCount; j++) {
+            data[j] = toColumn(columns[j].getType(), values[j], values[j].length);
+        }
     }
 
 
@@ -176,34 +201,184 @@ public class TableBuilder {
         int nColumns = headings.length;
         this.columnCount = nColumns + offset;
         columns          = new TableDataColumn[columnCount];
-        data             = new Object[columnCount][];
+        data             = new Object[columnCount];
 
         if (offset > 0) {
             createColumn(0, IMAGE, ImageData.class);
-            data[0] = new ImageData[rowCount];
-            Arrays.fill(data[0], image.asDataObject());
+            Object[] images = new Object[rowCount];
+            Arrays.fill(images, image.asDataObject());
+            data[0] = images;
         }
         if (offset > 1) {
             createColumn(1, roiProperty, ROIData.class);
-            data[1] = roiColumn;
+            data[1] = toColumn(ROIData.class, roiColumn, rowCount);
         }
         for (int i = 0; i < nColumns; i++) {
             Variable[] col = rt.getColumnAsVariables(headings[i]);
 
             if (isColumnNumeric(col) && !headings[i].equals(LABEL)) {
                 createColumn(offset + i, shortHeadings[i], Double.class);
-                data[offset + i] = Arrays.stream(col)
-                                         .map(Variable::getValue)
-                                         .toArray(Double[]::new);
+                data[offset + i] = Arrays.copyOf(rt.getColumn(headings[i]), rowCount);
             } else {
                 createColumn(offset + i, shortHeadings[i], String.class);
-                data[offset + i] = rt.getColumnAsStrings(headings[i]);
+                data[offset + i] = toColumn(String.class, rt.getColumnAsStrings(headings[i]), rowCount);
             }
         }
         this.row = rowCount;
     }
 
 
+    /**
+     * Creates an empty column storage for the specified type: {@code double[]} for {@link Double}, {@code long[]} for
+     * {@link Long} and {@code Object[]} otherwise.
+     *
+     * @param type The column type.
+     * @param size The column size.
+     *
+     * @return See above.
+     */
+    private static Object newColumn(Class<?> type, int size) {
+        if (Double.class.equals(type)) {
+            return new double[size];
+        } else if (Long.class.equals(type)) {
+            return new long[size];
+        } else {
+            return new Object[size];
+        }
+    }
+
+
+    /**
+     * Creates an empty column storage of the same kind as an existing one.
+     *
+     * @param column The existing column.
+     * @param size   The column size.
+     *
+     * @return See above.
+     */
+    private static Object newColumn(Object column, int size) {
+        if (column instanceof double[]) {
+            return new double[size];
+        } else if (column instanceof long[]) {
+            return new long[size];
+        } else {
+            return new Object[size];
+        }
+    }
+
+
+    /**
+     * Returns the size of a column storage.
+     *
+     * @param column The column.
+     *
+     * @return See above.
+     */
+    private static int length(Object column) {
+        return Array.getLength(column);
+    }
+
+
+    /**
+     * Resets the values of a column storage between two indices ({@code null} or 0).
+     *
+     * @param column The column.
+     * @param from   The first index (inclusive).
+     * @param to     The last index (exclusive).
+     */
+    private static void clear(Object column, int from, int to) {
+        if (from < to) {
+            if (column instanceof double[]) {
+                Arrays.fill((double[]) column, from, to, 0.0);
+            } else if (column instanceof long[]) {
+                Arrays.fill((long[]) column, from, to, 0L);
+            } else {
+                Arrays.fill((Object[]) column, from, to, null);
+            }
+        }
+    }
+
+
+    /**
+     * Gets a value from a column storage, boxing it if necessary.
+     *
+     * @param column The column.
+     * @param index  The row index.
+     *
+     * @return See above.
+     */
+    private static Object getValue(Object column, int index) {
+        if (column instanceof double[]) {
+            return ((double[]) column)[index];
+        } else if (column instanceof long[]) {
+            return ((long[]) column)[index];
+        } else {
+            return ((Object[]) column)[index];
+        }
+    }
+
+
+    /**
+     * Sets a value in a column storage, unboxing it if necessary ({@code null} is stored as NaN in a {@code double[]}
+     * and 0 in a {@code long[]}).
+     *
+     * @param column The column.
+     * @param index  The row index.
+     * @param value  The value.
+     */
+    private static void setValue(Object column, int index, Object value) {
+        if (column instanceof double[]) {
+            ((double[]) column)[index] = value != null ? ((Number) value).doubleValue() : Double.NaN;
+        } else if (column instanceof long[]) {
+            ((long[]) column)[index] = value != null ? ((Number) value).longValue() : 0L;
+        } else {
+            ((Object[]) column)[index] = value;
+        }
+    }
+
+
+    /**
+     * Converts values to the column storage corresponding to the specified type.
+     *
+     * @param type   The column type.
+     * @param values The values.
+     * @param size   The column size.
+     *
+     * @return See above.
+     */
+    private static Object toColumn(Class<?> type, Object values, int size) {
+        Object column = newColumn(type, size);
+        int    n      = Math.min(size, length(values));
+        if (column.getClass().equals(values.getClass())) {
+            System.arraycopy(values, 0, column, 0, n);
+        } else {
+            for (int i = 0; i < n; i++) {
+                setValue(column, i, getValue(values, i));
+            }
+        }
+        return column;
+    }
+
+
+    /**
+     * Converts a column storage to an array of objects, boxing the values if necessary.
+     *
+     * @param column The column.
+     * @param size   The number of values to convert.
+     *
+     * @return See above.
+     */
+    private static Object[] toObjects(Object column, int size) {
+        if (column instanceof double[]) {
+            return Arrays.stream((double[]) column, 0, size).boxed().toArray(Double[]::new);
+        } else if (column instanceof long[]) {
+            return Arrays.stream((long[]) column, 0, size).boxed().toArray(Long[]::new);
+        } else {
+            return Arrays.copyOf((Object[]) column, size);
+        }
+    }
+
+
     /**
      * Checks if the new columns match the existing ones.
      *
@@ -234,6 +409,9 @@ public class TableBuilder {
     private void createColumn(int column, String columnName, Class<?> type) {
         if (column < columnCount) {
             columns[column] = new TableDataColumn(columnName, column, type);
+            if (data[column] != null && !newColumn(type, 0).getClass().equals(data[column].getClass())) {
+                data[column] = toColumn(type, data[column], length(data[column]));
+            }
         } else {
             String error = String.format("Column %d doesn't exist", column);
             throw new IndexOutOfBoundsException(error);
@@ -251,10 +429,12 @@ public class TableBuilder {
         for (int j = columns.length - 1; j >= 0; j--) {
             TableDataColumn column = columns[j];
             if (column.getType().equals(String.class)) {
+                Object[] values = (Object[]) data[j];
+
                 boolean empty = true;
                 int     i     = 0;
                 while (i < rowCount && empty) {
-                    if (data[j][i] != null && !((String) data[j][i]).isEmpty()) {
+                    if (values[i] != null && !((String) values[i]).isEmpty()) {
                         empty = false;
                     }
                     i++;
@@ -278,7 +458,7 @@ public class TableBuilder {
             columnCount--;
             int               length     = columnCount - index;
             TableDataColumn[] newColumns = new TableDataColumn[columnCount];
-            Object[][]        newData    = new Object[columnCount][];
+            Object[]          newData    = new Object[columnCount];
             System.arraycopy(columns, 0, newColumns, 0, index);
             System.arraycopy(columns, index + 1, newColumns, index, length);
             System.arraycopy(data, 0, newData, 0, index);
@@ -365,20 +545,24 @@ public class TableBuilder {
         setRowCount(rowCount + n);
 
         if (offset > 0) {
-            Arrays.fill(data[0], row, row + n, image.asDataObject());
+            Arrays.fill((Object[]) data[0], row, row + n, image.asDataObject());
         }
         if (offset > 1) {
             System.arraycopy(roiColumn, 0, data[1], row, n);
         }
         for (int i = 0; i < nColumns; i++) {
+            Object column = data[offset + i];
             if (columns[offset + i].getType().equals(String.class)) {
                 String[] col = rt.getColumnAsStrings(headings[i]);
-                System.arraycopy(col, 0, data[offset + i], row, n);
+                System.arraycopy(col, 0, column, row, n);
+            } else if (column instanceof double[]) {
+                double[] col = rt.getColumn(headings[i]);
+                System.arraycopy(col, 0, column, row, n);
             } else {
-                Double[] col = Arrays.stream(rt.getColumn(headings[i]))
-                                     .boxed()
-                                     .toArray(Double[]::new);
-                System.arraycopy(col, 0, data[offset + i], row, n);
+                double[] col = rt.getColumn(headings[i]);
+                for (int k = 0; k < n; k++) {
+                    setValue(column, row + k, col[k]);
+                }
             }
         }
         row += n;
@@ -397,11 +581,16 @@ public class TableBuilder {
 
     /**
      * Gets the value contained in the table
+     * <p>Numeric columns are stored as primitive arrays: their values are boxed in the returned arrays.</p>
      *
      * @return the value contained in the table.
      */
     public Object[][] getData() {
-        return data.clone();
+        Object[][] values = new Object[columnCount][];
+        for (int j = 0; j < columnCount; j++) {
+            values[j] = toObjects(data[j], Math.min(rowCount, length(data[j])));
+        }
+        return values;
     }
 
 
@@ -414,7 +603,7 @@ public class TableBuilder {
      * @return the value at position data[y][x].
      */
     public Object getData(int x, int y) {
-        return data[y][x];
+        return getValue(data[y], x);
     }
 
 
@@ -484,20 +673,40 @@ public class TableBuilder {
 
     /**
      * Sets the number of row in the table. Copies already existing data if some were already in the data
+     * <p>Columns are only reallocated when their capacity is exceeded, in which case it is (at least) doubled, so that
+     * adding rows repeatedly takes linear time overall.</p>
      *
      * @param rowCount New rowCount.
      */
     public void setRowCount(int rowCount) {
         if (rowCount != this.rowCount) {
-            Object[][] temp = new Object[columnCount][rowCount];
-            if (data != null) {
-                row = Math.min(rowCount, row);
-                for (int j = 0; j < columnCount; j++) {
-                    System.arraycopy(data[j], 0, temp[j], 0, row);
+            row = Math.min(rowCount, row);
+            for (int j = 0; j < columnCount; j++) {
+                int capacity = length(data[j]);
+                if (rowCount > capacity) {
+                    int    grown = (int) Math.min(Integer.MAX_VALUE - 8, 2L * capacity);
+                    Object temp  = newColumn(data[j], Math.max(rowCount, grown));
+                    System.arraycopy(data[j], 0, temp, 0, row);
+                    data[j] = temp;
+                } else {
+                    clear(data[j], row, Math.min(this.rowCount, capacity));
                 }
             }
             this.rowCount = rowCount;
-            data          = temp;
+        }
+    }
+
+
+    /**
+     * Reduces the capacity of the columns to the number of rows.
+     */
+    private void trimToSize() {
+        for (int j = 0; j < columnCount; j++) {
+            if (length(data[j]) > rowCount) {
+                Object temp = newColumn(data[j], rowCount);
+                System.arraycopy(data[j], 0, temp, 0, rowCount);
+                data[j] = temp;
+            }
         }
     }
 
@@ -537,8 +746,7 @@ public class TableBuilder {
     public void addRow(Object... os) {
         if (row < rowCount && os.length == columnCount) {
             for (int i = 0; i < os.length; i++) {
-                Object o = os[i];
-                data[i][row] = o;
+                setValue(data[i], row, os[i]);
             }
             row++;
         } else if (row >= rowCount) {
@@ -572,12 +780,13 @@ public class TableBuilder {
         if (!isComplete()) {
             truncateRow();
         }
+        trimToSize();
 
         List<Integer> emptyColumns = new ArrayList<>(getEmptyStringColumns());
         emptyColumns.sort(Collections.reverseOrder());
         emptyColumns.forEach(this::removeColumn);
 
-        return new TableWrapper(new TableData(columns, data), name);
+        return new TableWrapper(new TableData(columns, getData()), name);
     }
 
 
@@ -615,7 +824,7 @@ public class TableBuilder {
             for (int i = 0; i < rowCount; i++) {
                 sb.append(sol);
                 for (int j = 0; j < columnCount; j++) {
-                    Object value = data[j][i];
+                    Object value = getValue(data[j], i);
                     if (DataObject.class.isAssignableFrom(columns[j].getType())) {
                         value = ((DataObject) value).getId();
                     }
@@ -0,0 +1,209 @@
+/*
+ *  Copyright (C) 2020-2025 GReD
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ * Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+
+
+package fr.igred.omero.annotations;
+
+
+import fr.igred.omero.client.DataManager;
+import fr.igred.omero.exception.AccessException;
+import fr.igred.omero.exception.ServiceException;
+import fr.igred.omero.exception.UncheckedOMEROException;
+import omero.gateway.SecurityContext;
+import omero.gateway.facility.TablesFacility;
+import omero.gateway.model.TableData;
+import omero.gateway.model.TableDataColumn;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+
+import static fr.igred.omero.exception.ExceptionHandler.call;
+
+
+/**
+ * Cursor over the rows of a table stored in OMERO, which only keeps the current page of rows in memory and loads the
+ * next one on demand.
+ * <p>Each row is returned as an array containing one value per selected column. Errors while loading a page are
+ * thrown as {@link UncheckedOMEROException}.</p>
+ */
+public class TableCursor implements Iterator<Object[]> {
+
+    /** The tables facility */
+    private final TablesFacility tf;
+
+    /** The security context */
+    private final SecurityContext ctx;
+
+    /** The table, without data */
+    private final Table table;
+
+    /** Indices of the selected columns */
+    private final int[] columns;
+
+    /** Maximum number of rows per page */
+    private final int pageSize;
+
+    /** Current page of data, as Object['column index']['row data'] */
+    private Object[][] page = new Object[0][0];
+
+    /** Index of the first row of the current page */
+    private long pageOffset = 0L;
+
+    /** Number of rows in the current page */
+    private int pageLength = 0;
+
+    /** Index of the next row */
+    private long row = 0L;
+
+
+    /**
+     * Constructor of the TableCursor class.
+     *
+     * @param dm       The data manager.
+     * @param table    The table to read (only its metadata is used: file ID, number of rows and columns).
+     * @param pageSize The maximum number of rows loaded at once.
+     * @param columns  The indices of the columns to read (all columns if none are specified).
+     *
+     * @throws ExecutionException       A Facility can't be retrieved or instantiated.
+     * @throws IllegalArgumentException If the page size is not positive.
+     */
+    public TableCursor(DataManager dm, Table table, int pageSize, int... columns)
+    throws ExecutionException {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        this.tf       = dm.getTablesFacility();
+        this.ctx      = dm.getCtx();
+        this.table    = table;
+        this.pageSize = pageSize;
+        if (columns == null || columns.length == 0) {
+            this.columns = new int[table.getColumns().length];
+            for (int i = 0; i < this.columns.length; i++) {
+                this.columns[i] = i;
+            }
+        } else {
+            this.columns = columns.clone();
+        }
+    }
+
+
+    /**
+     * Loads the page starting at the specified row.
+     *
+     * @param first The index of the first row.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    private void load(long first) throws ServiceException, AccessException {
+        long last = Math.min(first + pageSize, table.getNumberOfRows()) - 1;
+        TableData data = call(tf,
+                              t -> t.getTable(ctx, table.getOriginalFileId(), first, last, columns),
+                              "Cannot get rows " + first + " to " + last + " from table " + table.getName());
+        page = data.getData();
+        pageOffset = first;
+        pageLength = page.length > 0 ? page[0].length : 0;
+    }
+
+
+    /**
+     * Returns the name of the table.
+     *
+     * @return See above.
+     */
+    public String getName() {
+        return table.getName();
+    }
+
+
+    /**
+     * Returns the ID of the table.
+     *
+     * @return See above.
+     */
+    public long getId() {
+        return table.getId();
+    }
+
+
+    /**
+     * Returns the total number of rows in the table.
+     *
+     * @return See above.
+     */
+    public long getNumberOfRows() {
+        return table.getNumberOfRows();
+    }
+
+
+    /**
+     * Returns the selected columns.
+     *
+     * @return See above.
+     */
+    public TableDataColumn[] getColumns() {
+        TableDataColumn[] all      = table.getColumns();
+        TableDataColumn[] selected = new TableDataColumn[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            selected[i] = all[columns[i]];
+        }
+        return selected;
+    }
+
+
+    /**
+     * Returns the index of the next row.
+     *
+     * @return See above.
+     */
+    public long getRow() {
+        return row;
+    }
+
+
+    @Override
+    public boolean hasNext() {
+        return row < table.getNumberOfRows();
+    }
+
+
+    @Override
+    public Object[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more rows in table " + table.getName());
+        }
+        if (row >= pageOffset + pageLength) {
+            try {
+                load(row);
+            } catch (ServiceException | AccessException e) {
+                throw new UncheckedOMEROException("Cannot load rows from " + row, e);
+            }
+            if (pageLength == 0) {
+                throw new NoSuchElementException("No more rows in table " + table.getName());
+            }
+        }
+        int      index  = (int) (row - pageOffset);
+        Object[] values = new Object[page.length];
+        for (int c = 0; c < page.length; c++) {
+            values[c] = page[c][index];
+        }
+        row++;
+        return values;
+    }
+
+}
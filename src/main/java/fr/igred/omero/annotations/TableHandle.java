@@ -0,0 +1,255 @@
+/*
+ *  Copyright (C) 2020-2025 GReD
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ * Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+
+
+package fr.igred.omero.annotations;
+
+
+import fr.igred.omero.client.DataManager;
+import fr.igred.omero.exception.AccessException;
+import fr.igred.omero.exception.ServiceException;
+import fr.igred.omero.exception.UncheckedOMEROException;
+import omero.gateway.model.TableData;
+import omero.gateway.model.TableDataColumn;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+import static fr.igred.omero.exception.ExceptionHandler.call;
+
+
+/**
+ * Lightweight handle on a table stored in OMERO: its name, ID, number of rows and columns are available immediately,
+ * while its data is only loaded on first access.
+ */
+public class TableHandle implements Table {
+
+    /** The data manager used to load the data */
+    private final DataManager dm;
+
+    /** The table metadata (columns and number of rows) */
+    private final TableData info;
+
+    /** The table data, once loaded */
+    private TableData tableData = null;
+
+    /** Name of the table */
+    private String name;
+
+    /** ID of the table */
+    private long id;
+
+
+    /**
+     * Constructor of the TableHandle class.
+     *
+     * @param dm   The data manager used to load the data.
+     * @param info The table metadata, as returned by {@link omero.gateway.facility.TablesFacility#getTableInfo}.
+     * @param name Name of the table.
+     * @param id   ID of the table.
+     */
+    public TableHandle(DataManager dm, TableData info, String name, long id) {
+        this.dm   = Objects.requireNonNull(dm);
+        this.info = Objects.requireNonNull(info);
+        this.name = name;
+        this.id   = id;
+    }
+
+
+    /**
+     * Overridden to use the original file ID, without loading the table data.
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(info.getOriginalFileId());
+    }
+
+
+    /**
+     * Overridden to compare the original file IDs, without loading the table data.
+     */
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof TableHandle)) {
+            return false;
+        }
+        return info.getOriginalFileId() == ((TableHandle) object).info.getOriginalFileId();
+    }
+
+
+    /**
+     * Overridden to return the name of the class, the object id and the table name.
+     */
+    @Override
+    public String toString() {
+        return String.format("%s (id=%d, name=%s)", getClass().getSimpleName(), id, name);
+    }
+
+
+    /**
+     * Returns the loaded table data, or the table metadata if the data was not loaded yet.
+     *
+     * @return See above.
+     */
+    private TableData current() {
+        return tableData != null ? tableData : info;
+    }
+
+
+    /**
+     * Loads the table data, if it was not loaded yet.
+     *
+     * @return The table data.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    public synchronized TableData load()
+    throws ServiceException, AccessException, ExecutionException {
+        if (tableData == null) {
+            long fileId = info.getOriginalFileId();
+            long nRows  = info.getNumberOfRows();
+            TableData data = call(dm.getTablesFacility(),
+                                  tf -> tf.getTable(dm.getCtx(), fileId, 0, nRows - 1),
+                                  "Cannot get table " + name);
+            Objects.requireNonNull(data).setOriginalFileId(fileId);
+            tableData = data;
+        }
+        return tableData;
+    }
+
+
+    /**
+     * Returns {@code true} if the table data was loaded.
+     *
+     * @return See above.
+     */
+    public synchronized boolean isLoaded() {
+        return tableData != null;
+    }
+
+
+    /**
+     * Gets a cursor over the rows of the table, which loads the rows page by page on demand.
+     *
+     * @param pageSize The maximum number of rows loaded at once.
+     * @param columns  The indices of the columns to read (all columns if none are specified).
+     *
+     * @return See above.
+     *
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    public TableCursor getCursor(int pageSize, int... columns) throws ExecutionException {
+        return new TableCursor(dm, this, pageSize, columns);
+    }
+
+
+    /**
+     * Get the TableData object, loading the data if needed.
+     * <p>Errors while loading the data are thrown as {@link UncheckedOMEROException}.</p>
+     *
+     * @return See above
+     */
+    @Override
+    public synchronized TableData getTableData() {
+        try {
+            return load();
+        } catch (ServiceException | AccessException | ExecutionException e) {
+            throw new UncheckedOMEROException("Cannot get table " + name, e);
+        }
+    }
+
+
+    /**
+     * Get the name of the table.
+     *
+     * @return See above
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+
+    /**
+     * Set the name of the table.
+     *
+     * @param name See above.
+     */
+    @Override
+    public void setName(String name) {
+        this.name = name;
+    }
+
+
+    /**
+     * Get the ID of the table.
+     *
+     * @return See above
+     */
+    @Override
+    public long getId() {
+        return id;
+    }
+
+
+    /**
+     * Set the ID of the table.
+     *
+     * @param id See above.
+     */
+    @Override
+    public void setId(long id) {
+        this.id = id;
+    }
+
+
+    /**
+     * @return The total number of rows in the original table, without loading the data.
+     */
+    @Override
+    public synchronized long getNumberOfRows() {
+        return current().getNumberOfRows();
+    }
+
+
+    /**
+     * Get the original file id, without loading the data.
+     *
+     * @return See above
+     */
+    @Override
+    public synchronized long getOriginalFileId() {
+        return current().getOriginalFileId();
+    }
+
+
+    /**
+     * Get the headers, without loading the data.
+     *
+     * @return See above
+     */
+    @Override
+    public synchronized TableDataColumn[] getColumns() {
+        return current().getColumns();
+    }
+
+}
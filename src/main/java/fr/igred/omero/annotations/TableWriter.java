@@ -0,0 +1,533 @@
+/*
+ *  Copyright (C) 2020-2025 GReD
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ * Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+
+
+package fr.igred.omero.annotations;
+
+
+import fr.igred.omero.Annotatable;
+import fr.igred.omero.client.Client;
+import fr.igred.omero.exception.AccessException;
+import fr.igred.omero.exception.ExceptionHandler;
+import fr.igred.omero.exception.ServiceException;
+import omero.api.SharedResourcesPrx;
+import omero.constants.namespaces.NSBULKANNOTATIONS;
+import omero.gateway.model.DataObject;
+import omero.gateway.model.DatasetData;
+import omero.gateway.model.FileAnnotationData;
+import omero.gateway.model.ImageData;
+import omero.gateway.model.PlateData;
+import omero.gateway.model.ROIData;
+import omero.gateway.model.TableDataColumn;
+import omero.gateway.model.WellData;
+import omero.grid.BoolColumn;
+import omero.grid.Column;
+import omero.grid.DatasetColumn;
+import omero.grid.DoubleColumn;
+import omero.grid.FileColumn;
+import omero.grid.ImageColumn;
+import omero.grid.LongColumn;
+import omero.grid.PlateColumn;
+import omero.grid.RoiColumn;
+import omero.grid.StringColumn;
+import omero.grid.TablePrx;
+import omero.grid.WellColumn;
+import omero.model.FileAnnotation;
+import omero.model.FileAnnotationI;
+import omero.model.OriginalFile;
+import omero.model.OriginalFileI;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+
+import static fr.igred.omero.exception.ExceptionHandler.call;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static omero.rtypes.rstring;
+
+
+/**
+ * Class to write a table to OMERO row by row, without holding the whole table in memory.
+ * <p>Rows are buffered and sent to OMERO in batches: the OMERO.table is created when the first batch is sent, and
+ * each batch is then appended to it. The table is linked to the target object once the writer is closed.</p>
+ * <p>String columns have a fixed width in OMERO.tables: if there are string columns, their width has to be set with
+ * {@link #setStringWidth(int)} before the first row is added, and rows with longer strings are rejected when they
+ * are added.</p>
+ * <p>If the export fails, {@link #abort()} closes the OMERO.table and deletes it.</p>
+ * <p>Supported column types are: {@link String}, {@link Boolean}, integer types, floating-point types,
+ * {@link ImageData}, {@link ROIData}, {@link DatasetData}, {@link PlateData}, {@link WellData} and
+ * {@link FileAnnotationData}.</p>
+ */
+public class TableWriter implements AutoCloseable {
+
+    /** The client handling the connection */
+    private final Client client;
+
+    /** The object the table will be linked to */
+    private final Annotatable target;
+
+    /** Name of the table */
+    private final String name;
+
+    /** Information of each column (Name, Type) */
+    private final TableDataColumn[] columns;
+
+    /** Buffered rows, as Object['column index']['row data'] */
+    private final Object[][] buffer;
+
+    /** Number of buffered rows */
+    private int buffered = 0;
+
+    /** Number of rows sent to OMERO */
+    private long written = 0L;
+
+    /** Width of the string columns, in bytes (0 until it is set) */
+    private int stringWidth = 0;
+
+    /** The OMERO.table, once created */
+    private TablePrx table;
+
+    /** ID of the file annotation, once the table is linked */
+    private long id = -1L;
+
+    /** ID of the original file, once the table is created */
+    private long originalFileId = -1L;
+
+    /** Whether the writer was closed */
+    private boolean closed = false;
+
+
+    /**
+     * Constructor of the class TableWriter.
+     * <p>If there are string columns, {@link #setStringWidth(int)} has to be called before adding rows.</p>
+     *
+     * @param client    The client handling the connection.
+     * @param target    The object the table will be linked to.
+     * @param name      Name of the table.
+     * @param columns   Information of each column (Name, Type).
+     * @param batchSize The number of rows sent to OMERO at once.
+     *
+     * @throws IllegalArgumentException If the batch size is not positive or a column type is not supported.
+     */
+    public TableWriter(Client client, Annotatable target, String name, TableDataColumn[] columns, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        for (TableDataColumn column : columns) {
+            checkType(column.getType());
+        }
+        this.client  = client;
+        this.target  = target;
+        this.name    = name;
+        this.columns = columns.clone();
+        this.buffer  = new Object[columns.length][batchSize];
+    }
+
+
+    /**
+     * Checks that a column type is supported.
+     *
+     * @param type The column type.
+     *
+     * @throws IllegalArgumentException If the type is not supported.
+     */
+    private static void checkType(Class<?> type) {
+        boolean supported = String.class.equals(type)
+                            || Boolean.class.equals(type)
+                            || Long.class.equals(type)
+                            || Integer.class.equals(type)
+                            || Short.class.equals(type)
+                            || Byte.class.equals(type)
+                            || Double.class.equals(type)
+                            || Float.class.equals(type)
+                            || ImageData.class.equals(type)
+                            || ROIData.class.equals(type)
+                            || DatasetData.class.equals(type)
+                            || PlateData.class.equals(type)
+                            || WellData.class.equals(type)
+                            || FileAnnotationData.class.equals(type);
+        if (!supported) {
+            throw new IllegalArgumentException("Unsupported column type: " + type);
+        }
+    }
+
+
+    /**
+     * Returns the IDs of the objects in a column (-1 for null values).
+     *
+     * @param values The column values.
+     * @param n      The number of rows.
+     *
+     * @return See above.
+     */
+    private static long[] toIds(Object[] values, int n) {
+        long[] ids = new long[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = values[i] != null ? ((DataObject) values[i]).getId() : -1L;
+        }
+        return ids;
+    }
+
+
+    /**
+     * Returns the length, in bytes, of a value converted to a string (0 for null values).
+     *
+     * @param value The value.
+     *
+     * @return See above.
+     */
+    private static int length(Object value) {
+        return value != null ? value.toString().getBytes(UTF_8).length : 0;
+    }
+
+
+    /**
+     * Creates an OMERO.tables column from the buffered values.
+     *
+     * @param index The column index.
+     * @param n     The number of rows.
+     *
+     * @return See above.
+     */
+    private Column createColumn(int index, int n) {
+        String   header = columns[index].getName();
+        String   desc   = columns[index].getDescription();
+        Class<?> type   = columns[index].getType();
+        Object[] values = buffer[index];
+
+        Column column;
+        if (String.class.equals(type)) {
+            String[] strings = new String[n];
+            for (int i = 0; i < n; i++) {
+                strings[i] = values[i] != null ? values[i].toString() : "";
+            }
+            column = new StringColumn(header, desc, stringWidth, strings);
+        } else if (Boolean.class.equals(type)) {
+            boolean[] booleans = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                booleans[i] = values[i] != null && (Boolean) values[i];
+            }
+            column = new BoolColumn(header, desc, booleans);
+        } else if (Double.class.equals(type) || Float.class.equals(type)) {
+            double[] doubles = new double[n];
+            for (int i = 0; i < n; i++) {
+                doubles[i] = values[i] != null ? ((Number) values[i]).doubleValue() : Double.NaN;
+            }
+            column = new DoubleColumn(header, desc, doubles);
+        } else if (ImageData.class.equals(type)) {
+            column = new ImageColumn(header, desc, toIds(values, n));
+        } else if (ROIData.class.equals(type)) {
+            column = new RoiColumn(header, desc, toIds(values, n));
+        } else if (DatasetData.class.equals(type)) {
+            column = new DatasetColumn(header, desc, toIds(values, n));
+        } else if (PlateData.class.equals(type)) {
+            column = new PlateColumn(header, desc, toIds(values, n));
+        } else if (WellData.class.equals(type)) {
+            column = new WellColumn(header, desc, toIds(values, n));
+        } else if (FileAnnotationData.class.equals(type)) {
+            long[] ids = new long[n];
+            for (int i = 0; i < n; i++) {
+                ids[i] = values[i] != null ? ((FileAnnotationData) values[i]).getFileID() : -1L;
+            }
+            column = new FileColumn(header, desc, ids);
+        } else {
+            long[] longs = new long[n];
+            for (int i = 0; i < n; i++) {
+                longs[i] = values[i] != null ? ((Number) values[i]).longValue() : 0L;
+            }
+            column = new LongColumn(header, desc, longs);
+        }
+        return column;
+    }
+
+
+    /**
+     * Creates the OMERO.table.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    private void createTable() throws ServiceException, AccessException {
+        String error = "Cannot create table " + name;
+
+        SharedResourcesPrx sr = call(client.getGateway(),
+                                     g -> g.getSharedResources(client.getCtx()),
+                                     error);
+        long repository = call(sr,
+                               s -> s.repositories().descriptions.get(0).getId().getValue(),
+                               error);
+        table = call(sr, s -> s.newTable(repository, name), error);
+        if (table == null) {
+            throw new AccessException(error, new NullPointerException("No table returned"));
+        }
+        OriginalFile file = call(table, TablePrx::getOriginalFile, error);
+        originalFileId = file.getId().getValue();
+
+        Column[] headers = new Column[columns.length];
+        for (int j = 0; j < columns.length; j++) {
+            headers[j] = createColumn(j, 0);
+        }
+        ExceptionHandler.ofConsumer(table, t -> t.initialize(headers))
+                        .handleOMEROException(error)
+                        .rethrow();
+    }
+
+
+    /**
+     * Closes the OMERO.table, if it was created.
+     *
+     * @param error The message, if an exception is thrown.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    private void closeTable(String error) throws ServiceException, AccessException {
+        if (table != null) {
+            ExceptionHandler.ofConsumer(table, TablePrx::close)
+                            .handleOMEROException(error)
+                            .rethrow();
+        }
+    }
+
+
+    /**
+     * Sets the width, in bytes, of the string columns. It has to be set before the first row is added if there are
+     * string columns.
+     *
+     * @param stringWidth The width.
+     *
+     * @throws IllegalArgumentException If the width is not positive.
+     * @throws IllegalStateException    If rows were already added.
+     */
+    public void setStringWidth(int stringWidth) {
+        if (stringWidth < 1) {
+            throw new IllegalArgumentException("String width must be positive: " + stringWidth);
+        }
+        if (buffered > 0 || table != null) {
+            throw new IllegalStateException("String width should be set before adding rows");
+        }
+        this.stringWidth = stringWidth;
+    }
+
+
+    /**
+     * Adds a row to the table. The buffered rows are sent to OMERO once the batch is full.
+     *
+     * @param values Value for each column for the row.
+     *
+     * @throws ServiceException         Cannot connect to OMERO.
+     * @throws AccessException          Cannot access data.
+     * @throws IllegalArgumentException Incorrect argument number, or a string is wider than the string columns.
+     * @throws IllegalStateException    The writer was closed, or the width of the string columns was not set.
+     */
+    public void addRow(Object... values)
+    throws ServiceException, AccessException {
+        if (closed) {
+            throw new IllegalStateException("Table writer is closed");
+        }
+        if (values.length != columns.length) {
+            String error = "Argument count is different than the column size";
+            throw new IllegalArgumentException(error);
+        }
+        for (int j = 0; j < values.length; j++) {
+            if (String.class.equals(columns[j].getType())) {
+                if (stringWidth < 1) {
+                    throw new IllegalStateException("String width should be set before adding rows");
+                }
+                if (length(values[j]) > stringWidth) {
+                    String error = String.format("String in column %s exceeds %d bytes", columns[j].getName(),
+                                                 stringWidth);
+                    throw new IllegalArgumentException(error);
+                }
+            }
+        }
+        for (int j = 0; j < values.length; j++) {
+            buffer[j][buffered] = values[j];
+        }
+        buffered++;
+        if (buffered == buffer[0].length) {
+            flush();
+        }
+    }
+
+
+    /**
+     * Adds all the rows from a table, which should have the same columns.
+     *
+     * @param rows The table containing the rows to add.
+     *
+     * @throws ServiceException         Cannot connect to OMERO.
+     * @throws AccessException          Cannot access data.
+     * @throws IllegalArgumentException Incorrect column number, or a string is wider than the string columns.
+     * @throws IllegalStateException    The writer was closed, or the width of the string columns was not set.
+     */
+    public void addRows(Table rows)
+    throws ServiceException, AccessException {
+        Object[][] data = rows.getData();
+        int        n    = data.length > 0 ? data[0].length : 0;
+        Object[]   row  = new Object[data.length];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < data.length; j++) {
+                row[j] = data[j][i];
+            }
+            addRow(row);
+        }
+    }
+
+
+    /**
+     * Sends the buffered rows to OMERO, creating the table first if needed.
+     *
+     * @throws ServiceException      Cannot connect to OMERO.
+     * @throws AccessException       Cannot access data.
+     * @throws IllegalStateException The writer was closed.
+     */
+    public void flush() throws ServiceException, AccessException {
+        if (closed) {
+            throw new IllegalStateException("Table writer is closed");
+        }
+        if (table == null) {
+            createTable();
+        }
+        if (buffered > 0) {
+            Column[] data = new Column[columns.length];
+            for (int j = 0; j < columns.length; j++) {
+                data[j] = createColumn(j, buffered);
+            }
+            ExceptionHandler.ofConsumer(table, t -> t.addData(data))
+                            .handleOMEROException("Cannot add rows to table " + name)
+                            .rethrow();
+            written += buffered;
+            for (Object[] column : buffer) {
+                Arrays.fill(column, 0, buffered, null);
+            }
+            buffered = 0;
+        }
+    }
+
+
+    /**
+     * Sends the remaining rows, closes the OMERO.table and links it to the target object.
+     * <p>The OMERO.table is closed even if an error occurs. In that case, it is not linked to the target object and
+     * {@link #abort()} should be called to delete it.</p>
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    @Override
+    public void close() throws ServiceException, AccessException, ExecutionException {
+        if (!closed) {
+            String error = "Cannot add table to " + target;
+
+            OriginalFile file;
+            try {
+                flush();
+                file = call(table, TablePrx::getOriginalFile, error);
+            } finally {
+                closed = true;
+                closeTable(error);
+            }
+
+            FileAnnotation fa = new FileAnnotationI();
+            fa.setFile(file);
+            fa.setNs(rstring(NSBULKANNOTATIONS.value));
+            fa.setDescription(rstring(name));
+            FileAnnotationData annotation = new FileAnnotationData(fa);
+            try {
+                DataObject linked = call(client.getDMFacility(),
+                                         d -> d.attachAnnotation(client.getCtx(), annotation, target.asDataObject()),
+                                         error);
+                id = linked.getId();
+            } finally {
+                client.invalidateCache(Collections.singletonList(target.asDataObject().asIObject()));
+            }
+        }
+    }
+
+
+    /**
+     * Discards the table: the buffered rows are dropped, the OMERO.table is closed and deleted. Has no effect once
+     * the table is linked to the target object.
+     *
+     * @throws ServiceException     Cannot connect to OMERO.
+     * @throws AccessException      Cannot access data.
+     * @throws ExecutionException   A Facility can't be retrieved or instantiated.
+     * @throws InterruptedException If block(long) does not return.
+     */
+    public void abort()
+    throws ServiceException, AccessException, ExecutionException, InterruptedException {
+        if (id < 0) {
+            for (Object[] column : buffer) {
+                Arrays.fill(column, null);
+            }
+            buffered = 0;
+            try {
+                if (!closed) {
+                    closed = true;
+                    closeTable("Cannot close table " + name);
+                }
+            } finally {
+                if (originalFileId >= 0) {
+                    client.delete(new OriginalFileI(originalFileId, false));
+                    originalFileId = -1L;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Returns the name of the table.
+     *
+     * @return See above.
+     */
+    public String getName() {
+        return name;
+    }
+
+
+    /**
+     * Returns the number of rows sent to OMERO.
+     *
+     * @return See above.
+     */
+    public long getRowCount() {
+        return written;
+    }
+
+
+    /**
+     * Returns the ID of the table (the file annotation ID), once the writer is closed, or -1.
+     *
+     * @return See above.
+     */
+    public long getId() {
+        return id;
+    }
+
+
+    /**
+     * Returns the original file ID of the table, once it is created, or -1.
+     *
+     * @return See above.
+     */
+    public long getOriginalFileId() {
+        return originalFileId;
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ *  Copyright (C) 2020-2025 GReD
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ * Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+
+
+package fr.igred.omero.client;
+
+
+import fr.igred.omero.Annotatable;
+import fr.igred.omero.annotations.Annotation;
+import fr.igred.omero.annotations.TagAnnotation;
+import fr.igred.omero.exception.AccessException;
+import fr.igred.omero.exception.ServiceException;
+import omero.RLong;
+import omero.RType;
+import omero.api.IQueryPrx;
+import omero.gateway.util.ModelMapper;
+import omero.model.IObject;
+import omero.sys.ParametersI;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import static fr.igred.omero.exception.ExceptionHandler.call;
+
+
+/**
+ * Utility class to link many annotations to many objects at once.
+ */
+final class AnnotationLinks {
+
+    /** Query returning the existing links between parents and children */
+    private static final String EXISTING_LINKS_QUERY = "select link.parent.id, link.child.id from %s link" +
+                                                       " where link.parent.id in (:parents)" +
+                                                       " and link.child.id in (:children)";
+
+
+    private AnnotationLinks() {
+    }
+
+
+    /**
+     * Links all the annotations to all the objects, if they are not already linked.
+     * <p>Annotations which were not saved yet are saved first. Existing links are retrieved with one query per
+     * link type and per chunk of objects, then the new links are saved in chunks.</p>
+     *
+     * @param client      The client handling the connection.
+     * @param objects     The objects to annotate.
+     * @param annotations The annotations.
+     * @param chunkSize   The maximum number of objects per query, and of links per save.
+     *
+     * @return The number of links created.
+     *
+     * @throws ServiceException         Cannot connect to OMERO.
+     * @throws AccessException          Cannot access data.
+     * @throws ExecutionException       A Facility can't be retrieved or instantiated.
+     * @throws IllegalArgumentException If an annotation is a tag set, or an object cannot be annotated.
+     */
+    static int link(Client client,
+                    Collection<? extends Annotatable> objects,
+                    Collection<? extends Annotation> annotations,
+                    int chunkSize)
+    throws ServiceException, AccessException, ExecutionException {
+        Map<Long, omero.model.Annotation> children = new LinkedHashMap<>(annotations.size());
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof TagAnnotation && ((TagAnnotation) annotation).isTagSet()) {
+                throw new IllegalArgumentException("Tag sets should only be linked to tags");
+            }
+            if (annotation.getId() < 0) {
+                annotation.saveAndUpdate(client);
+            }
+            IObject child = annotation.asDataObject().asIObject().proxy();
+            children.put(annotation.getId(), (omero.model.Annotation) child);
+        }
+        if (children.isEmpty()) {
+            return 0;
+        }
+        omero.model.Annotation sample = children.values().iterator().next();
+
+        Map<String, Map<Long, IObject>> parents = new LinkedHashMap<>(1);
+        for (Annotatable object : objects) {
+            IObject parent = object.asDataObject().asIObject().proxy();
+            IObject link   = ModelMapper.linkAnnotation(parent, sample);
+            if (link == null) {
+                throw new IllegalArgumentException("Annotations cannot be linked to " + object);
+            }
+            parents.computeIfAbsent(getLinkType(link), k -> new LinkedHashMap<>())
+                   .put(object.getId(), parent);
+        }
+
+        List<IObject> links = new ArrayList<>(objects.size() * children.size());
+        for (Map.Entry<String, Map<Long, IObject>> entry : parents.entrySet()) {
+            Set<List<Long>> existing = getExistingLinks(client,
+                                                        entry.getKey(),
+                                                        entry.getValue().keySet(),
+                                                        children.keySet(),
+                                                        chunkSize);
+            for (Map.Entry<Long, IObject> parent : entry.getValue().entrySet()) {
+                for (Map.Entry<Long, omero.model.Annotation> child : children.entrySet()) {
+                    List<Long> pair = new ArrayList<>(2);
+                    pair.add(parent.getKey());
+                    pair.add(child.getKey());
+                    if (!existing.contains(pair)) {
+                        links.add(ModelMapper.linkAnnotation(parent.getValue(), child.getValue()));
+                    }
+                }
+            }
+        }
+
+        for (List<IObject> chunk : Batches.partition(links, chunkSize)) {
+            client.save(chunk);
+        }
+        return links.size();
+    }
+
+
+    /**
+     * Returns the model type of a link (e.g. {@code ImageAnnotationLink}), as used in queries.
+     *
+     * @param link The link.
+     *
+     * @return See above.
+     */
+    private static String getLinkType(IObject link) {
+        String name = link.getClass().getSimpleName();
+        // Implementations of the model classes are suffixed with "I"
+        return name.endsWith("I") ? name.substring(0, name.length() - 1) : name;
+    }
+
+
+    /**
+     * Retrieves the existing links of the given type between parents and children.
+     *
+     * @param browser   The data browser.
+     * @param linkType  The link type.
+     * @param parentIds The parent IDs.
+     * @param childIds  The child IDs.
+     * @param chunkSize The maximum number of parents per query.
+     *
+     * @return The (parent ID, child ID) pairs.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    private static Set<List<Long>> getExistingLinks(Browser browser,
+                                                    String linkType,
+                                                    Collection<Long> parentIds,
+                                                    Collection<Long> childIds,
+                                                    int chunkSize)
+    throws ServiceException, AccessException {
+        String    query = String.format(EXISTING_LINKS_QUERY, linkType);
+        IQueryPrx qs    = browser.getQueryService();
+
+        Set<List<Long>> existing = new HashSet<>(0);
+        for (List<Long> chunk : Batches.partition(parentIds, chunkSize)) {
+            ParametersI params = new ParametersI();
+            params.addLongs("parents", chunk);
+            params.addLongs("children", childIds);
+            List<List<RType>> rows = call(qs, q -> q.projection(query, params), "Cannot get links");
+            for (List<RType> row : rows) {
+                List<Long> pair = new ArrayList<>(2);
+                pair.add(((RLong) row.get(0)).getValue());
+                pair.add(((RLong) row.get(1)).getValue());
+                existing.add(pair);
+            }
+        }
+        return existing;
+    }
+
+}
@@ -0,0 +1,217 @@
+/*
+ *  Copyright (C) 2020-2025 GReD
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ * Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+
+package fr.igred.omero.client;
+
+
+import fr.igred.omero.exception.AccessException;
+import fr.igred.omero.exception.ServiceException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static fr.igred.omero.exception.ExceptionHandler.handleOMEROException;
+
+
+/**
+ * Utility class to split large requests into batches, and process them concurrently.
+ */
+public final class Batches {
+
+    private Batches() {
+    }
+
+
+    /**
+     * Splits a collection into consecutive batches of at most {@code size} elements.
+     *
+     * @param elements The elements.
+     * @param size     The maximum batch size.
+     * @param <T>      The type of elements.
+     *
+     * @return See above.
+     */
+    public static <T> List<List<T>> partition(Collection<? extends T> elements, int size) {
+        int batchSize = Math.max(1, size);
+
+        List<List<T>>         batches = new ArrayList<>(elements.size() / batchSize + 1);
+        Iterator<? extends T> it      = elements.iterator();
+        while (it.hasNext()) {
+            List<T> batch = new ArrayList<>(Math.min(batchSize, elements.size()));
+            while (batch.size() < batchSize && it.hasNext()) {
+                batch.add(it.next());
+            }
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+
+    /**
+     * Creates a daemon thread to process batches.
+     *
+     * @param runnable The task run by the thread.
+     *
+     * @return See above.
+     */
+    static Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "omero-batch-request");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+
+    /**
+     * Applies a function to each batch, with at most {@code threads} batches processed concurrently by the executor.
+     * <p>Results are returned in the same order as the batches. Each of the (at most {@code threads}) tasks submitted
+     * to the executor processes the remaining batches one after the other, so that the executor can be shared.</p>
+     *
+     * @param executor The executor processing the batches.
+     * @param batches  The batches.
+     * @param function The function applied to each batch.
+     * @param threads  The maximum number of batches processed concurrently.
+     * @param error    The message, if an exception is thrown.
+     * @param <T>      The type of batches.
+     * @param <R>      The type of results.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    public static <T, R> List<R> map(ExecutorService executor,
+                                     List<? extends T> batches,
+                                     BatchFunction<? super T, ? extends R> function,
+                                     int threads,
+                                     String error)
+    throws ServiceException, AccessException, ExecutionException {
+        int nThreads = Math.min(threads, batches.size());
+        if (nThreads <= 1) {
+            List<R> results = new ArrayList<>(batches.size());
+            for (T batch : batches) {
+                results.add(function.apply(batch));
+            }
+            return results;
+        }
+
+        AtomicReferenceArray<R> results = new AtomicReferenceArray<>(batches.size());
+        AtomicInteger           next    = new AtomicInteger();
+        List<Future<Void>>      workers = new ArrayList<>(nThreads);
+        try {
+            for (int i = 0; i < nThreads; i++) {
+                workers.add(executor.submit(() -> {
+                    int index = next.getAndIncrement();
+                    while (index < batches.size() && !Thread.currentThread().isInterrupted()) {
+                        try {
+                            results.set(index, function.apply(batches.get(index)));
+                        } catch (ServiceException | AccessException | ExecutionException | RuntimeException e) {
+                            next.set(batches.size());
+                            throw e;
+                        }
+                        index = next.getAndIncrement();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> worker : workers) {
+                getResult(worker, error);
+            }
+        } finally {
+            workers.forEach(worker -> worker.cancel(true));
+        }
+
+        List<R> list = new ArrayList<>(batches.size());
+        for (int i = 0; i < batches.size(); i++) {
+            list.add(results.get(i));
+        }
+        return list;
+    }
+
+
+    /**
+     * Waits for a task to complete and returns its result, rethrowing the exception thrown by the task, if any.
+     *
+     * @param future The task result.
+     * @param error  The message, if an unexpected exception is thrown.
+     * @param <R>    The type of the result.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    static <R> R getResult(Future<R> future, String error)
+    throws ServiceException, AccessException, ExecutionException {
+        R result = null;
+        try {
+            result = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccessException(error, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ServiceException) {
+                throw (ServiceException) cause;
+            } else if (cause instanceof AccessException) {
+                throw (AccessException) cause;
+            } else if (cause instanceof ExecutionException) {
+                throw (ExecutionException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            handleOMEROException(e, error);
+        }
+        return result;
+    }
+
+
+    /**
+     * Function applied to a batch.
+     *
+     * @param <T> The type of batches.
+     * @param <R> The type of results.
+     */
+    @FunctionalInterface
+    public interface BatchFunction<T, R> {
+
+        /**
+         * Applies the function to the given batch.
+         *
+         * @param batch The batch.
+         *
+         * @return The result.
+         *
+         * @throws ServiceException   Cannot connect to OMERO.
+         * @throws AccessException    Cannot access data.
+         * @throws ExecutionException A Facility can't be retrieved or instantiated.
+         */
+        R apply(T batch) throws ServiceException, AccessException, ExecutionException;
+
+    }
+
+}
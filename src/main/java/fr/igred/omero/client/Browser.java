@@ -18,37 +18,55 @@
 package fr.igred.omero.client;
 
 
+import fr.igred.omero.Annotatable;
 import fr.igred.omero.RemoteObject;
 import fr.igred.omero.annotations.Annotation;
 import fr.igred.omero.annotations.MapAnnotation;
+import fr.igred.omero.annotations.MapAnnotationWrapper;
 import fr.igred.omero.annotations.TagAnnotation;
+import fr.igred.omero.annotations.TagAnnotationWrapper;
 import fr.igred.omero.containers.Dataset;
 import fr.igred.omero.containers.Folder;
 import fr.igred.omero.containers.Project;
 import fr.igred.omero.core.Image;
 import fr.igred.omero.exception.AccessException;
 import fr.igred.omero.exception.ServiceException;
+import fr.igred.omero.exception.UncheckedOMEROException;
 import fr.igred.omero.meta.Experimenter;
+import fr.igred.omero.roi.ROI;
 import fr.igred.omero.screen.Plate;
 import fr.igred.omero.screen.Screen;
 import fr.igred.omero.screen.Well;
+import fr.igred.omero.util.Wrapper;
 import omero.RLong;
+import omero.RType;
 import omero.api.IQueryPrx;
 import omero.gateway.SecurityContext;
 import omero.gateway.facility.BrowseFacility;
 import omero.gateway.facility.MetadataFacility;
+import omero.gateway.model.AnnotationData;
+import omero.gateway.model.MapAnnotationData;
+import omero.gateway.model.TagAnnotationData;
+import omero.gateway.util.PojoMapper;
 import omero.model.IObject;
+import omero.sys.ParametersI;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static fr.igred.omero.RemoteObject.flatten;
 import static fr.igred.omero.exception.ExceptionHandler.call;
 import static java.lang.String.format;
+import static java.util.Collections.singletonList;
 
 
 /**
@@ -58,6 +76,27 @@ import static java.lang.String.format;
 //Fewer methods than counted because of polymorphism.
 public interface Browser {
 
+    /** Number of rows fetched per page by paged queries. */
+    int QUERY_PAGE_SIZE = 1000;
+
+
+    /**
+     * Converts a motif to an HQL {@code like} pattern matching any text which contains the motif literally: the
+     * {@code \}, {@code %} and {@code _} characters are escaped with {@code \}, so the query has to declare
+     * {@code escape '\'}.
+     *
+     * @param motif The motif.
+     *
+     * @return See above.
+     */
+    static String toLikePattern(String motif) {
+        String escaped = motif.replace("\\", "\\\\")
+                              .replace("%", "\\%")
+                              .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
+
     /**
      * Returns the current {@link SecurityContext}.
      *
@@ -123,6 +162,92 @@ public interface Browser {
     }
 
 
+    /**
+     * Finds objects on OMERO through a database query, fetching the results lazily, page by page. Only the current
+     * page is kept in memory, so the query should be ordered for the paging to be stable.
+     * <p>The first page is loaded immediately. Errors occurring while loading the following pages are thrown as
+     * {@link UncheckedOMEROException}.</p>
+     *
+     * @param query    The database query.
+     * @param params   The query parameters (paging is overwritten).
+     * @param pageSize The number of objects fetched per page.
+     *
+     * @return A sequential stream of OMERO objects.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    default Stream<IObject> findByQuery(String query, ParametersI params, int pageSize)
+    throws ServiceException, AccessException {
+        IQueryPrx qs    = getQueryService();
+        String    error = "Query failed: " + query;
+        return QueryPages.stream((offset, limit) -> {
+            params.page(offset, limit);
+            return call(qs, q -> q.findAllByQuery(query, params), error);
+        }, pageSize);
+    }
+
+
+    /**
+     * Finds objects on OMERO through a database query and wraps them, fetching the results lazily, page by page.
+     * <p>See {@link #findByQuery(String, ParametersI, int)}. A {@link ClassCastException} is thrown when an object
+     * is consumed from the stream if its wrapper is not an instance of the specified class.</p>
+     *
+     * @param klass    The class of the wrapped objects.
+     * @param query    The database query.
+     * @param params   The query parameters (paging is overwritten).
+     * @param pageSize The number of objects fetched per page.
+     * @param <T>      The type of the wrapped objects.
+     *
+     * @return A sequential stream of wrapped objects.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    default <T extends RemoteObject> Stream<T> findWrappedByQuery(Class<T> klass,
+                                                                  String query,
+                                                                  ParametersI params,
+                                                                  int pageSize)
+    throws ServiceException, AccessException {
+        return findByQuery(query, params, pageSize).map(o -> klass.cast(Wrapper.wrap(PojoMapper.asDataObject(o))));
+    }
+
+
+    /**
+     * Finds IDs on OMERO through a database query projecting a single ID column. The results are fetched page by
+     * page, {@link #QUERY_PAGE_SIZE} rows at a time, so the query should be ordered for the paging to be stable.
+     *
+     * @param query  The database query.
+     * @param params The query parameters (paging is overwritten).
+     *
+     * @return The list of IDs, in the query order.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    default List<Long> findIdsByQuery(String query, ParametersI params)
+    throws ServiceException, AccessException {
+        IQueryPrx qs    = getQueryService();
+        String    error = "Query failed: " + query;
+
+        Stream<List<RType>> rows = QueryPages.stream((offset, limit) -> {
+            params.page(offset, limit);
+            return call(qs, q -> q.projection(query, params), error);
+        }, QUERY_PAGE_SIZE);
+        try {
+            return rows.map(row -> ((RLong) row.get(0)).getValue())
+                       .collect(Collectors.toList());
+        } catch (UncheckedOMEROException e) {
+            if (e.getCause() instanceof ServiceException) {
+                throw (ServiceException) e.getCause();
+            } else if (e.getCause() instanceof AccessException) {
+                throw (AccessException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+
     /**
      * Finds an object of the specified class, with the specified id in all available OMERO groups.
      *
@@ -495,7 +620,9 @@ public interface Browser {
 
 
     /**
-     * Gets all images with a certain motif in their name from OMERO.
+     * Gets all images from OMERO whose name contains the motif as a literal substring.
+     * <p>The motif is matched on the server with an HQL {@code like} query, where {@code %} and {@code _} are escaped.
+     * Use {@link #getImagesLike(String, Pattern)} to refine the results with a regular expression.</p>
      *
      * @param motif Motif searched in an image name.
      *
@@ -507,9 +634,36 @@ public interface Browser {
      */
     default List<Image> getImagesLike(String motif)
     throws ServiceException, AccessException, ExecutionException {
-        List<Image> images = getImages();
-        String      regexp = ".*" + motif + ".*";
-        images.removeIf(image -> !image.getName().matches(regexp));
+        String query = "select i.id from Image i" +
+                       " where i.details.owner.id = :owner" +
+                       " and i.name like :motif escape '\\'" +
+                       " order by i.id";
+        ParametersI params = new ParametersI();
+        params.add("owner", omero.rtypes.rlong(getUser().getId()));
+        params.add("motif", omero.rtypes.rstring(toLikePattern(motif)));
+
+        List<Long> ids = findIdsByQuery(query, params);
+        return getImages(ids.toArray(new Long[0]));
+    }
+
+
+    /**
+     * Gets all images with a certain motif in their name from OMERO, then only keeps those whose name also contains a
+     * match for the specified regular expression.
+     *
+     * @param motif Motif searched in an image name.
+     * @param regex Regular expression used to refine the results.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    default List<Image> getImagesLike(String motif, Pattern regex)
+    throws ServiceException, AccessException, ExecutionException {
+        List<Image> images = getImagesLike(motif);
+        images.removeIf(image -> !regex.matcher(image.getName()).find());
         return images;
     }
 
@@ -527,14 +681,7 @@ public interface Browser {
      */
     default List<Image> getImagesWithKey(String key)
     throws ServiceException, AccessException, ExecutionException {
-        List<MapAnnotation> maps = getMapAnnotations(key);
-
-        Collection<Collection<Image>> selected = new ArrayList<>(maps.size());
-        for (MapAnnotation map : maps) {
-            selected.add(getImages(map));
-        }
-
-        return flatten(selected);
+        return getImagesWithKeyValuePair(key, null);
     }
 
 
@@ -542,7 +689,7 @@ public interface Browser {
      * Gets all images with a certain key value pair from OMERO
      *
      * @param key   Name of the key researched.
-     * @param value Value associated with the key.
+     * @param value Value associated with the key ({@code null} to match any value).
      *
      * @return See above.
      *
@@ -552,14 +699,42 @@ public interface Browser {
      */
     default List<Image> getImagesWithKeyValuePair(String key, String value)
     throws ServiceException, AccessException, ExecutionException {
-        List<MapAnnotation> maps = getMapAnnotations(key, value);
-
-        Collection<Collection<Image>> selected = new ArrayList<>(maps.size());
-        for (MapAnnotation map : maps) {
-            selected.add(getImages(map));
+        ParametersI params = new ParametersI();
+        params.add("key", omero.rtypes.rstring(key));
+
+        String query = "select distinct link.parent.id from ImageAnnotationLink link" +
+                       " where link.child.id in" +
+                       " (select m.id from MapAnnotation m" +
+                       " join m.mapValue as mv" +
+                       " where mv.name = :key";
+        if (value != null) {
+            query += " and mv.value = :value";
+            params.add("value", omero.rtypes.rstring(value));
         }
+        query += ") order by link.parent.id";
 
-        return flatten(selected);
+        List<Long> ids = findIdsByQuery(query, params);
+        return getImages(ids.toArray(new Long[0]));
+    }
+
+
+    /**
+     * Retrieves the parents of the specified images (datasets, projects, wells, plates, plate acquisitions and
+     * screens), indexed by image ID.
+     * <p>The links are resolved with a few joined queries for all the images, rather than one query per image and
+     * per level.</p>
+     *
+     * @param images The images.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    default ImageHierarchy getHierarchy(Collection<? extends Image> images)
+    throws ServiceException, AccessException, ExecutionException {
+        return ImageHierarchy.load(this, images);
     }
 
 
@@ -988,4 +1163,169 @@ public interface Browser {
     MapAnnotation getMapAnnotation(Long id)
     throws ServiceException, ExecutionException, AccessException;
 
+
+    /**
+     * Retrieves the annotations of the specified types linked to multiple objects, indexed by object ID.
+     * <p>The objects are split into batches, which are retrieved concurrently through the {@link MetadataFacility}.
+     * As the results are indexed by ID, the objects have to be of the same type.</p>
+     *
+     * @param objects The annotated objects, all of the same type.
+     * @param types   The annotation types ({@code null} for all types).
+     *
+     * @return The annotations, as AnnotationData, for each object ID.
+     *
+     * @throws ServiceException         Cannot connect to OMERO.
+     * @throws AccessException          Cannot access data.
+     * @throws ExecutionException       A Facility can't be retrieved or instantiated.
+     * @throws IllegalArgumentException The objects are not all of the same type.
+     */
+    Map<Long, List<AnnotationData>> getAnnotationData(Collection<? extends Annotatable> objects,
+                                                      List<Class<? extends AnnotationData>> types)
+    throws ServiceException, AccessException, ExecutionException;
+
+
+    /**
+     * Retrieves the annotations (of known types) linked to multiple objects, indexed by object ID.
+     * <p>See {@link #getAnnotationData(Collection, List)}.</p>
+     *
+     * @param objects The annotated objects.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException         Cannot connect to OMERO.
+     * @throws AccessException          Cannot access data.
+     * @throws ExecutionException       A Facility can't be retrieved or instantiated.
+     * @throws IllegalArgumentException The objects are not all of the same type.
+     */
+    default Map<Long, List<Annotation>> getAnnotations(Collection<? extends Annotatable> objects)
+    throws ServiceException, AccessException, ExecutionException {
+        Map<Long, List<AnnotationData>> data = getAnnotationData(objects, null);
+
+        Map<Long, List<Annotation>> annotations = new HashMap<>(data.size());
+        for (Map.Entry<Long, List<AnnotationData>> entry : data.entrySet()) {
+            List<Annotation> list = new ArrayList<>(entry.getValue().size());
+            entry.getValue().forEach(a -> list.add(Wrapper.wrap(a)));
+            annotations.put(entry.getKey(), list);
+        }
+        return annotations;
+    }
+
+
+    /**
+     * Retrieves the tags linked to multiple objects, indexed by object ID.
+     * <p>See {@link #getAnnotationData(Collection, List)}.</p>
+     *
+     * @param objects The annotated objects.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException         Cannot connect to OMERO.
+     * @throws AccessException          Cannot access data.
+     * @throws ExecutionException       A Facility can't be retrieved or instantiated.
+     * @throws IllegalArgumentException The objects are not all of the same type.
+     */
+    default Map<Long, List<TagAnnotation>> getTags(Collection<? extends Annotatable> objects)
+    throws ServiceException, AccessException, ExecutionException {
+        Map<Long, List<AnnotationData>> data = getAnnotationData(objects, singletonList(TagAnnotationData.class));
+
+        Map<Long, List<TagAnnotation>> tags = new HashMap<>(data.size());
+        for (Map.Entry<Long, List<AnnotationData>> entry : data.entrySet()) {
+            tags.put(entry.getKey(), entry.getValue()
+                                          .stream()
+                                          .filter(TagAnnotationData.class::isInstance)
+                                          .map(TagAnnotationData.class::cast)
+                                          .map(TagAnnotationWrapper::new)
+                                          .collect(Collectors.toList()));
+        }
+        return tags;
+    }
+
+
+    /**
+     * Retrieves the map annotations linked to multiple objects, indexed by object ID.
+     * <p>See {@link #getAnnotationData(Collection, List)}.</p>
+     *
+     * @param objects The annotated objects.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    default Map<Long, List<MapAnnotation>> getMapAnnotations(Collection<? extends Annotatable> objects)
+    throws ServiceException, AccessException, ExecutionException {
+        Map<Long, List<AnnotationData>> data = getAnnotationData(objects, singletonList(MapAnnotationData.class));
+
+        Map<Long, List<MapAnnotation>> maps = new HashMap<>(data.size());
+        for (Map.Entry<Long, List<AnnotationData>> entry : data.entrySet()) {
+            maps.put(entry.getKey(), entry.getValue()
+                                          .stream()
+                                          .filter(MapAnnotationData.class::isInstance)
+                                          .map(MapAnnotationData.class::cast)
+                                          .map(MapAnnotationWrapper::new)
+                                          .collect(Collectors.toList()));
+        }
+        return maps;
+    }
+
+
+    /**
+     * Retrieves the key-value pairs linked to multiple objects, indexed by object ID.
+     * <p>See {@link #getAnnotationData(Collection, List)}.</p>
+     *
+     * @param objects The annotated objects.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    default Map<Long, List<Map.Entry<String, String>>> getKeyValuePairs(Collection<? extends Annotatable> objects)
+    throws ServiceException, AccessException, ExecutionException {
+        Map<Long, List<MapAnnotation>> maps = getMapAnnotations(objects);
+
+        Map<Long, List<Map.Entry<String, String>>> pairs = new HashMap<>(maps.size());
+        for (Map.Entry<Long, List<MapAnnotation>> entry : maps.entrySet()) {
+            pairs.put(entry.getKey(), entry.getValue()
+                                           .stream()
+                                           .map(MapAnnotation::getContent)
+                                           .flatMap(List::stream)
+                                           .collect(Collectors.toList()));
+        }
+        return pairs;
+    }
+
+
+    /**
+     * Retrieves the ROIs linked to multiple images, indexed by image ID.
+     * <p>The images are split into batches, for which the ROI IDs are retrieved first. The ROIs are then retrieved
+     * with their shapes by small batches of ROIs. Batches are retrieved concurrently. The ROIs of each image are
+     * sorted by ID.</p>
+     *
+     * @param images The images.
+     *
+     * @return The ROIs for each image ID.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    Map<Long, List<ROI>> getROIs(Collection<? extends Image> images)
+    throws ServiceException, AccessException, ExecutionException;
+
+
+    /**
+     * Lazily retrieves the ROIs linked to multiple images.
+     * <p>The images are split into batches, and the ROIs of a batch are only retrieved once the ROIs from the
+     * previous batch have been consumed. The ROIs are retrieved with their shapes by small batches of ROIs. Errors are
+     * thrown as {@link UncheckedOMEROException}.</p>
+     *
+     * @param images The images.
+     *
+     * @return A sequential stream of ROIs, sorted by ID within each batch.
+     */
+    Stream<ROI> streamROIs(Collection<? extends Image> images);
+
 }
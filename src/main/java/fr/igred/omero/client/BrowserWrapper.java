@@ -18,6 +18,7 @@
 package fr.igred.omero.client;
 
 
+import fr.igred.omero.Annotatable;
 import fr.igred.omero.RemoteObject;
 import fr.igred.omero.annotations.MapAnnotation;
 import fr.igred.omero.annotations.MapAnnotationWrapper;
@@ -32,8 +33,12 @@ import fr.igred.omero.containers.ProjectWrapper;
 import fr.igred.omero.core.Image;
 import fr.igred.omero.core.ImageWrapper;
 import fr.igred.omero.exception.AccessException;
+import fr.igred.omero.exception.ExceptionHandler.OMEROFunction;
 import fr.igred.omero.exception.ServiceException;
+import fr.igred.omero.exception.UncheckedOMEROException;
 import fr.igred.omero.meta.Experimenter;
+import fr.igred.omero.roi.ROI;
+import fr.igred.omero.roi.ROIWrapper;
 import fr.igred.omero.screen.Plate;
 import fr.igred.omero.screen.PlateWrapper;
 import fr.igred.omero.screen.Screen;
@@ -42,30 +47,46 @@ import fr.igred.omero.screen.Well;
 import fr.igred.omero.screen.WellWrapper;
 import fr.igred.omero.util.Wrapper;
 import omero.gateway.SecurityContext;
+import omero.gateway.facility.BrowseFacility;
+import omero.gateway.facility.MetadataFacility;
+import omero.gateway.model.AnnotationData;
+import omero.gateway.model.DataObject;
 import omero.gateway.model.DatasetData;
 import omero.gateway.model.FolderData;
 import omero.gateway.model.ImageData;
 import omero.gateway.model.MapAnnotationData;
 import omero.gateway.model.PlateData;
 import omero.gateway.model.ProjectData;
+import omero.gateway.model.ROIData;
 import omero.gateway.model.ScreenData;
 import omero.gateway.model.TagAnnotationData;
 import omero.gateway.model.WellData;
 import omero.gateway.util.PojoMapper;
+import omero.model.ILink;
 import omero.model.IObject;
+import omero.model.Roi;
+import omero.sys.ParametersI;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static fr.igred.omero.ObjectWrapper.wrap;
 import static fr.igred.omero.exception.ExceptionHandler.call;
 import static java.lang.String.format;
-import static java.util.Arrays.asList;
 import static java.util.Objects.requireNonNull;
 
 
@@ -74,6 +95,38 @@ import static java.util.Objects.requireNonNull;
  */
 public abstract class BrowserWrapper implements Browser {
 
+    /** Default maximum number of IDs sent in each request when retrieving objects from their IDs */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /** Default maximum number of requests sent concurrently when retrieving objects from their IDs */
+    public static final int DEFAULT_BATCH_THREADS = 4;
+
+    /** Maximum number of ROIs retrieved with their shapes in each request */
+    private static final int ROI_BATCH_SIZE = 50;
+
+    /** Query to retrieve the IDs of the ROIs linked to images */
+    private static final String ROI_IDS_QUERY = "select r.id from Roi r where r.image.id in (:ids) order by r.id";
+
+    /** Query to retrieve ROIs from their IDs, with their shapes */
+    private static final String ROIS_QUERY = "select distinct r from Roi r" +
+                                             " join fetch r.image" +
+                                             " left outer join fetch r.shapes s" +
+                                             " left outer join fetch s.transform" +
+                                             " where r.id in (:ids)" +
+                                             " order by r.id";
+
+    /** Maximum number of IDs sent in each request */
+    private volatile int batchSize = DEFAULT_BATCH_SIZE;
+
+    /** Maximum number of requests sent concurrently */
+    private volatile int batchThreads = DEFAULT_BATCH_THREADS;
+
+    /** Cache of objects retrieved by ID (disabled by default) */
+    private final ObjectCache cache = new ObjectCache();
+
+    /** Executor shared by concurrent requests, created when first needed */
+    private ExecutorService batchExecutor;
+
 
     /**
      * Abstract constructor of the BrowserWrapper class.
@@ -82,6 +135,218 @@ public abstract class BrowserWrapper implements Browser {
     }
 
 
+    /**
+     * Returns the maximum number of IDs sent in each request when retrieving objects from their IDs.
+     *
+     * @return See above.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+
+    /**
+     * Sets the maximum number of IDs sent in each request when retrieving objects from their IDs.
+     *
+     * @param batchSize The maximum number of IDs per request.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size should be strictly positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+
+    /**
+     * Returns the maximum number of requests sent concurrently when retrieving objects from their IDs.
+     *
+     * @return See above.
+     */
+    public int getBatchThreads() {
+        return batchThreads;
+    }
+
+
+    /**
+     * Sets the maximum number of requests sent concurrently when retrieving objects from their IDs.
+     *
+     * @param batchThreads The maximum number of concurrent requests (1 to send them sequentially).
+     */
+    public void setBatchThreads(int batchThreads) {
+        this.batchThreads = Math.max(1, batchThreads);
+    }
+
+
+    /**
+     * Returns the executor shared by concurrent requests (batches, tiles, planes...), creating it if needed. Its
+     * daemon threads are created as needed: callers bound the number of tasks they run at once.
+     *
+     * @return See above.
+     */
+    public synchronized ExecutorService getExecutor() {
+        if (batchExecutor == null) {
+            batchExecutor = Executors.newCachedThreadPool(Batches::newThread);
+        }
+        return batchExecutor;
+    }
+
+
+    /**
+     * Stops the threads used to send concurrent requests (e.g. when disconnecting). They are started again if needed.
+     */
+    protected synchronized void shutdownExecutor() {
+        if (batchExecutor != null) {
+            batchExecutor.shutdownNow();
+            batchExecutor = null;
+        }
+    }
+
+
+    /**
+     * Applies a function to each batch, with at most {@link #getBatchThreads()} batches processed concurrently.
+     * <p>Results are returned in the same order as the batches.</p>
+     *
+     * @param batches  The batches.
+     * @param function The function applied to each batch.
+     * @param error    The message, if an exception is thrown.
+     * @param <T>      The type of batches.
+     * @param <R>      The type of results.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    private <T, R> List<R> mapBatches(List<? extends T> batches,
+                                      Batches.BatchFunction<? super T, ? extends R> function,
+                                      String error)
+    throws ServiceException, AccessException, ExecutionException {
+        return Batches.map(getExecutor(), batches, function, batchThreads, error);
+    }
+
+
+    /**
+     * Enables the cache of objects retrieved by ID ({@link #getImage(Long)}, {@link #getDataset(Long)} and
+     * {@link #getTag(Long)}), or disables it if {@code maxSize} is 0. Current entries are discarded.
+     * <p>Cached objects are indexed by class, ID and group. Each call returns a new wrapper around a shallow copy of
+     * the cached object: its own fields (e.g. its name or description) can be changed without affecting the cache, but
+     * the objects it references (e.g. the pixels of an image, or its annotation links) are shared and should not be
+     * modified. Objects are removed when they expire, when the cache is full (least recently used first), or when they
+     * are saved or deleted through the {@link DataManager}.</p>
+     *
+     * @param maxSize The maximum number of cached objects.
+     * @param ttl     The time to live of cached objects.
+     * @param unit    The time unit of the time to live.
+     */
+    public void setCache(int maxSize, long ttl, TimeUnit unit) {
+        cache.configure(maxSize, ttl, unit);
+    }
+
+
+    /**
+     * Removes all objects from the cache.
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+
+
+    /**
+     * Removes the objects with the specified ID from the cache.
+     *
+     * @param id The object ID.
+     */
+    public void invalidateCache(long id) {
+        cache.invalidate(id);
+    }
+
+
+    /**
+     * Removes an object from the cache, as well as the parent and child if it is a link.
+     *
+     * @param object The OMERO object.
+     */
+    protected void invalidateCache(IObject object) {
+        if (object.getId() != null) {
+            cache.invalidate(object.getId().getValue());
+        }
+        if (object instanceof ILink) {
+            ILink link = (ILink) object;
+            if (link.getParent() != null && link.getParent().getId() != null) {
+                cache.invalidate(link.getParent().getId().getValue());
+            }
+            if (link.getChild() != null && link.getChild().getId() != null) {
+                cache.invalidate(link.getChild().getId().getValue());
+            }
+        }
+    }
+
+
+    /**
+     * Returns the number of objects currently cached.
+     *
+     * @return See above.
+     */
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+
+    /**
+     * Returns the number of lookups that found the object in the cache.
+     *
+     * @return See above.
+     */
+    public long getCacheHits() {
+        return cache.getHits();
+    }
+
+
+    /**
+     * Returns the number of lookups that did not find the object in the cache.
+     *
+     * @return See above.
+     */
+    public long getCacheMisses() {
+        return cache.getMisses();
+    }
+
+
+    /**
+     * Retrieves objects from their IDs, splitting the IDs in batches of at most {@link #getBatchSize()} IDs, sent
+     * concurrently (see {@link #getBatchThreads()}).
+     * <p>Duplicate IDs are removed, and batches are made of increasing IDs.</p>
+     *
+     * @param ids    The IDs.
+     * @param loader The function retrieving the objects for a batch of IDs.
+     * @param error  The message, if an exception is thrown.
+     * @param <T>    The type of objects.
+     *
+     * @return The objects retrieved for all batches.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    protected <T> List<T> getByIds(Long[] ids,
+                                   OMEROFunction<? super List<Long>, ? extends Collection<? extends T>> loader,
+                                   String error)
+    throws ServiceException, AccessException, ExecutionException {
+        List<Long> sorted = Arrays.stream(ids)
+                                  .distinct()
+                                  .sorted()
+                                  .collect(Collectors.toList());
+
+        List<List<Long>> batches = Batches.partition(sorted, batchSize);
+        List<Collection<? extends T>> results = mapBatches(batches, batch -> call(batch, loader, error), error);
+        List<T> objects = new ArrayList<>(sorted.size());
+        results.forEach(objects::addAll);
+        return objects;
+    }
+
+
     /**
      * Finds an object of the specified class, with the specified id in all OMERO groups.
      *
@@ -126,11 +391,10 @@ public abstract class BrowserWrapper implements Browser {
     @Override
     public List<Project> getProjects(Long... ids)
     throws ServiceException, AccessException, ExecutionException {
-        Collection<ProjectData> projects = call(getBrowseFacility(),
-                                                bf -> bf.getProjects(getCtx(),
-                                                                     asList(ids)),
-                                                "Cannot get projects with IDs: "
-                                                + Arrays.toString(ids));
+        String         error = "Cannot get projects with IDs: " + Arrays.toString(ids);
+        BrowseFacility bf    = getBrowseFacility();
+
+        List<ProjectData> projects = getByIds(ids, batch -> bf.getProjects(getCtx(), batch), error);
         return wrap(projects, ProjectWrapper::new);
     }
 
@@ -201,6 +465,32 @@ public abstract class BrowserWrapper implements Browser {
     }
 
 
+    /**
+     * Gets the dataset with the specified id from OMERO.
+     *
+     * @param id ID of the dataset.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException       Cannot connect to OMERO.
+     * @throws AccessException        Cannot access data.
+     * @throws NoSuchElementException No element with this ID.
+     * @throws ExecutionException     A Facility can't be retrieved or instantiated.
+     */
+    @Override
+    public Dataset getDataset(Long id)
+    throws ServiceException, AccessException, ExecutionException {
+        long        group  = getCtx().getGroupID();
+        DatasetData cached = cache.get(DatasetData.class, id, group);
+        if (cached != null) {
+            return new DatasetWrapper(cached);
+        }
+        Dataset dataset = Browser.super.getDataset(id);
+        cache.put(DatasetData.class, id, group, dataset.asDataObject());
+        return dataset;
+    }
+
+
     /**
      * Gets the datasets with the specified ids from OMERO.
      *
@@ -215,11 +505,10 @@ public abstract class BrowserWrapper implements Browser {
     @Override
     public List<Dataset> getDatasets(Long... ids)
     throws ServiceException, AccessException, ExecutionException {
-        Collection<DatasetData> datasets = call(getBrowseFacility(),
-                                                bf -> bf.getDatasets(getCtx(),
-                                                                     asList(ids)),
-                                                "Cannot get datasets with IDs: "
-                                                + Arrays.toString(ids));
+        String         error = "Cannot get datasets with IDs: " + Arrays.toString(ids);
+        BrowseFacility bf    = getBrowseFacility();
+
+        List<DatasetData> datasets = getByIds(ids, batch -> bf.getDatasets(getCtx(), batch), error);
         return wrap(datasets, DatasetWrapper::new);
     }
 
@@ -262,6 +551,11 @@ public abstract class BrowserWrapper implements Browser {
     @Override
     public Image getImage(Long id)
     throws ServiceException, AccessException, ExecutionException {
+        long      group  = getCtx().getGroupID();
+        ImageData cached = cache.get(ImageData.class, id, group);
+        if (cached != null) {
+            return new ImageWrapper(cached);
+        }
         String error = "Cannot get image with ID: " + id;
         ImageData image = call(getBrowseFacility(),
                                bf -> bf.getImage(getCtx(), id),
@@ -270,6 +564,7 @@ public abstract class BrowserWrapper implements Browser {
             String msg = format("Image %d doesn't exist in this context", id);
             throw new NoSuchElementException(msg);
         }
+        cache.put(ImageData.class, id, group, image);
         return new ImageWrapper(image);
     }
 
@@ -288,11 +583,10 @@ public abstract class BrowserWrapper implements Browser {
     @Override
     public List<Image> getImages(Long... ids)
     throws ServiceException, AccessException, ExecutionException {
-        String error = "Cannot get images with IDs: " + Arrays.toString(ids);
-        Collection<ImageData> images = call(getBrowseFacility(),
-                                            bf -> bf.getImages(getCtx(),
-                                                               asList(ids)),
-                                            error);
+        String         error = "Cannot get images with IDs: " + Arrays.toString(ids);
+        BrowseFacility bf    = getBrowseFacility();
+
+        List<ImageData> images = getByIds(ids, batch -> bf.getImages(getCtx(), batch), error);
         return wrap(images, ImageWrapper::new);
     }
 
@@ -376,11 +670,10 @@ public abstract class BrowserWrapper implements Browser {
     @Override
     public List<Screen> getScreens(Long... ids)
     throws ServiceException, AccessException, ExecutionException {
-        Collection<ScreenData> screens = call(getBrowseFacility(),
-                                              bf -> bf.getScreens(getCtx(),
-                                                                  asList(ids)),
-                                              "Cannot get screens with IDs: "
-                                              + Arrays.toString(ids));
+        String         error = "Cannot get screens with IDs: " + Arrays.toString(ids);
+        BrowseFacility bf    = getBrowseFacility();
+
+        List<ScreenData> screens = getByIds(ids, batch -> bf.getScreens(getCtx(), batch), error);
         return wrap(screens, ScreenWrapper::new);
     }
 
@@ -442,11 +735,10 @@ public abstract class BrowserWrapper implements Browser {
     @Override
     public List<Plate> getPlates(Long... ids)
     throws ServiceException, AccessException, ExecutionException {
-        Collection<PlateData> plates = call(getBrowseFacility(),
-                                            bf -> bf.getPlates(getCtx(),
-                                                               asList(ids)),
-                                            "Cannot get plates with IDs: "
-                                            + Arrays.toString(ids));
+        String         error = "Cannot get plates with IDs: " + Arrays.toString(ids);
+        BrowseFacility bf    = getBrowseFacility();
+
+        List<PlateData> plates = getByIds(ids, batch -> bf.getPlates(getCtx(), batch), error);
         return wrap(plates, PlateWrapper::new);
     }
 
@@ -507,11 +799,10 @@ public abstract class BrowserWrapper implements Browser {
     @Override
     public List<Well> getWells(Long... ids)
     throws ServiceException, AccessException, ExecutionException {
-        Collection<WellData> wells = call(getBrowseFacility(),
-                                          bf -> bf.getWells(getCtx(),
-                                                            asList(ids)),
-                                          "Cannot get wells with IDs: "
-                                          + Arrays.toString(ids));
+        String         error = "Cannot get wells with IDs: " + Arrays.toString(ids);
+        BrowseFacility bf    = getBrowseFacility();
+
+        List<WellData> wells = getByIds(ids, batch -> bf.getWells(getCtx(), batch), error);
         return wrap(wells, WellWrapper::new);
     }
 
@@ -572,11 +863,10 @@ public abstract class BrowserWrapper implements Browser {
     @Override
     public List<Folder> getFolders(Long... ids)
     throws ServiceException, AccessException, ExecutionException {
-        String error = "Cannot get folders with IDs: " + Arrays.toString(ids);
-        Collection<FolderData> folders = call(getBrowseFacility(),
-                                              bf -> bf.loadFolders(getCtx(),
-                                                                   asList(ids)),
-                                              error);
+        String         error = "Cannot get folders with IDs: " + Arrays.toString(ids);
+        BrowseFacility bf    = getBrowseFacility();
+
+        List<FolderData> folders = getByIds(ids, batch -> bf.loadFolders(getCtx(), batch), error);
         return wrap(folders, FolderWrapper::new);
     }
 
@@ -619,6 +909,11 @@ public abstract class BrowserWrapper implements Browser {
     @Override
     public TagAnnotation getTag(Long id)
     throws AccessException, ServiceException {
+        long              group  = getCtx().getGroupID();
+        TagAnnotationData cached = cache.get(TagAnnotationData.class, id, group);
+        if (cached != null) {
+            return new TagAnnotationWrapper(cached);
+        }
         IObject o = call(getQueryService(),
                          qs -> qs.find(omero.model.TagAnnotation.class.getSimpleName(), id),
                          "Cannot get tag ID: " + id);
@@ -629,6 +924,7 @@ public abstract class BrowserWrapper implements Browser {
         } else {
             tag = new TagAnnotationData((omero.model.TagAnnotation) requireNonNull(o));
         }
+        cache.put(TagAnnotationData.class, id, group, tag);
         return new TagAnnotationWrapper(tag);
     }
 
@@ -733,4 +1029,175 @@ public abstract class BrowserWrapper implements Browser {
         return new MapAnnotationWrapper(kv);
     }
 
+
+    /**
+     * Retrieves the annotations of the specified types linked to multiple objects, indexed by object ID.
+     * <p>The objects are split into batches of at most {@link #getBatchSize()} objects, which are retrieved
+     * concurrently (see {@link #getBatchThreads()}) through the {@link MetadataFacility}. As the results are indexed
+     * by ID, the objects have to be of the same type.</p>
+     *
+     * @param objects The annotated objects, all of the same type.
+     * @param types   The annotation types ({@code null} for all types).
+     *
+     * @return The annotations, as AnnotationData, sorted by ID for each object ID.
+     *
+     * @throws ServiceException         Cannot connect to OMERO.
+     * @throws AccessException          Cannot access data.
+     * @throws ExecutionException       A Facility can't be retrieved or instantiated.
+     * @throws IllegalArgumentException The objects are not all of the same type.
+     */
+    @Override
+    public Map<Long, List<AnnotationData>> getAnnotationData(Collection<? extends Annotatable> objects,
+                                                             List<Class<? extends AnnotationData>> types)
+    throws ServiceException, AccessException, ExecutionException {
+        List<DataObject> dataObjects = objects.stream()
+                                              .map(Annotatable::asDataObject)
+                                              .collect(Collectors.toList());
+        long nTypes = dataObjects.stream()
+                                 .map(Object::getClass)
+                                 .distinct()
+                                 .count();
+        if (nTypes > 1) {
+            throw new IllegalArgumentException("Objects should all be of the same type to be indexed by ID");
+        }
+
+        String           error = "Cannot get annotations for " + objects.size() + " objects";
+        MetadataFacility mf    = getMetadataFacility();
+
+        List<List<DataObject>> batches = Batches.partition(dataObjects, batchSize);
+
+        OMEROFunction<List<DataObject>, Map<DataObject, List<AnnotationData>>> loader;
+        loader = batch -> mf.getAnnotations(getCtx(), batch, types, null);
+
+        List<Map<DataObject, List<AnnotationData>>> results = mapBatches(batches,
+                                                                         batch -> call(batch, loader, error),
+                                                                         error);
+
+        Map<Long, List<AnnotationData>> annotations = new HashMap<>(objects.size());
+        objects.forEach(o -> annotations.put(o.getId(), new ArrayList<>(0)));
+        for (Map<DataObject, List<AnnotationData>> result : results) {
+            result.forEach((o, a) -> annotations.computeIfAbsent(o.getId(), k -> new ArrayList<>(a.size()))
+                                                .addAll(a));
+        }
+        annotations.values().forEach(a -> a.sort(Comparator.comparing(AnnotationData::getId)));
+        return annotations;
+    }
+
+
+    /**
+     * Retrieves the IDs of the ROIs linked to the specified images, page by page.
+     *
+     * @param imageIds The image IDs.
+     *
+     * @return The ROI IDs, sorted.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    private List<Long> loadROIIds(Collection<Long> imageIds)
+    throws ServiceException, AccessException {
+        ParametersI params = new ParametersI();
+        params.addIds(imageIds);
+        return findIdsByQuery(ROI_IDS_QUERY, params);
+    }
+
+
+    /**
+     * Retrieves ROIs with their shapes, with a single query.
+     *
+     * @param roiIds The ROI IDs.
+     *
+     * @return The ROIs, as Roi objects, sorted by ID.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    private List<Roi> loadROIs(Collection<Long> roiIds)
+    throws ServiceException, AccessException {
+        ParametersI params = new ParametersI();
+        params.addIds(roiIds);
+        List<IObject> results = call(getQueryService(),
+                                     qs -> qs.findAllByQuery(ROIS_QUERY, params),
+                                     "Cannot get " + roiIds.size() + " ROIs");
+        return results.stream()
+                      .map(Roi.class::cast)
+                      .collect(Collectors.toList());
+    }
+
+
+    /**
+     * Retrieves the ROIs linked to multiple images, indexed by image ID.
+     * <p>The images are split into batches of at most {@link #getBatchSize()} images, for which the ROI IDs are
+     * retrieved first. The ROIs are then retrieved with their shapes by batches of a few dozen ROIs, so that the size
+     * of each response stays bounded. At most {@link #getBatchThreads()} batches are retrieved concurrently. The ROIs
+     * of each image are sorted by ID.</p>
+     *
+     * @param images The images.
+     *
+     * @return The ROIs for each image ID.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    @Override
+    public Map<Long, List<ROI>> getROIs(Collection<? extends Image> images)
+    throws ServiceException, AccessException, ExecutionException {
+        String error = "Cannot get ROIs for " + images.size() + " images";
+
+        Map<Long, List<ROI>> rois = new LinkedHashMap<>(images.size());
+        images.forEach(i -> rois.put(i.getId(), new ArrayList<>(0)));
+
+        List<List<Long>> imageBatches = Batches.partition(rois.keySet(), batchSize);
+        List<List<Long>> roiIds       = mapBatches(imageBatches, this::loadROIIds, error);
+
+        List<Long> ids = roiIds.stream()
+                               .flatMap(List::stream)
+                               .collect(Collectors.toList());
+        List<List<Long>> roiBatches = Batches.partition(ids, ROI_BATCH_SIZE);
+        List<List<Roi>>  results    = mapBatches(roiBatches, this::loadROIs, error);
+        for (List<Roi> result : results) {
+            for (Roi roi : result) {
+                rois.get(roi.getImage().getId().getValue()).add(new ROIWrapper(new ROIData(roi)));
+            }
+        }
+        return rois;
+    }
+
+
+    /**
+     * Lazily retrieves the ROIs linked to multiple images.
+     * <p>The images are split into batches of at most {@link #getBatchSize()} images, and the ROIs of a batch are
+     * only retrieved once the ROIs from the previous batch have been consumed. The ROIs are retrieved with their
+     * shapes by batches of a few dozen ROIs. Errors are thrown as {@link UncheckedOMEROException}.</p>
+     *
+     * @param images The images.
+     *
+     * @return A sequential stream of ROIs, sorted by ID within each batch.
+     */
+    @Override
+    public Stream<ROI> streamROIs(Collection<? extends Image> images) {
+        Collection<Long> ids = images.stream()
+                                     .map(RemoteObject::getId)
+                                     .collect(Collectors.toCollection(LinkedHashSet::new));
+        return Batches.partition(ids, batchSize)
+                      .stream()
+                      .flatMap(batch -> {
+                          try {
+                              return Batches.partition(loadROIIds(batch), ROI_BATCH_SIZE).stream();
+                          } catch (ServiceException | AccessException e) {
+                              String error = "Cannot get ROIs for " + batch.size() + " images";
+                              throw new UncheckedOMEROException(error, e);
+                          }
+                      })
+                      .flatMap(batch -> {
+                          try {
+                              return loadROIs(batch).stream();
+                          } catch (ServiceException | AccessException e) {
+                              throw new UncheckedOMEROException("Cannot get " + batch.size() + " ROIs", e);
+                          }
+                      })
+                      .map(r -> new ROIWrapper(new ROIData(r)));
+    }
+
 }
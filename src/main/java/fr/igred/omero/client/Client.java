@@ -18,6 +18,8 @@
 package fr.igred.omero.client;
 
 
+import fr.igred.omero.Annotatable;
+import fr.igred.omero.annotations.Annotation;
 import fr.igred.omero.exception.AccessException;
 import fr.igred.omero.exception.ServiceException;
 import omero.api.IAdminPrx;
@@ -29,6 +31,7 @@ import omero.gateway.facility.MetadataFacility;
 import omero.gateway.facility.ROIFacility;
 import omero.gateway.facility.TablesFacility;
 
+import java.util.Collection;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ExecutionException;
 
@@ -148,6 +151,55 @@ public interface Client extends AdminManager, Browser, ConnectionHandler, DataMa
     }
 
 
+    /**
+     * Links all the annotations to all the objects, skipping the links which already exist.
+     * <p>Existing links are retrieved with a single query per type of object and per chunk of
+     * {@link #QUERY_PAGE_SIZE} objects, and new links are saved in chunks of the same size.</p>
+     *
+     * @param objects     The objects to annotate.
+     * @param annotations The annotations.
+     *
+     * @return The number of links created.
+     *
+     * @throws ServiceException         Cannot connect to OMERO.
+     * @throws AccessException          Cannot access data.
+     * @throws ExecutionException       A Facility can't be retrieved or instantiated.
+     * @throws IllegalArgumentException If an annotation is a tag set, or an object cannot be annotated.
+     */
+    default int link(Collection<? extends Annotatable> objects, Collection<? extends Annotation> annotations)
+    throws ServiceException, AccessException, ExecutionException {
+        return link(objects, annotations, QUERY_PAGE_SIZE);
+    }
+
+
+    /**
+     * Links all the annotations to all the objects, skipping the links which already exist.
+     * <p>Existing links are retrieved with a single query per type of object and per chunk of objects, and new links
+     * are saved in chunks of the same size.</p>
+     *
+     * @param objects     The objects to annotate.
+     * @param annotations The annotations.
+     * @param chunkSize   The maximum number of objects per query, and of links per save.
+     *
+     * @return The number of links created.
+     *
+     * @throws ServiceException         Cannot connect to OMERO.
+     * @throws AccessException          Cannot access data.
+     * @throws ExecutionException       A Facility can't be retrieved or instantiated.
+     * @throws IllegalArgumentException If an annotation is a tag set, an object cannot be annotated, or the chunk
+     *                                  size is not positive.
+     */
+    default int link(Collection<? extends Annotatable> objects,
+                     Collection<? extends Annotation> annotations,
+                     int chunkSize)
+    throws ServiceException, AccessException, ExecutionException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size should be positive: " + chunkSize);
+        }
+        return AnnotationLinks.link(this, objects, annotations, chunkSize);
+    }
+
+
     /**
      * Returns a Client associated with the provided username.
      * <p>The user calling this function needs to have administrator rights.
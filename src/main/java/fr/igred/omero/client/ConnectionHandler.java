@@ -18,11 +18,13 @@
 package fr.igred.omero.client;
 
 
+import fr.igred.omero.core.TileCache;
 import fr.igred.omero.exception.AccessException;
 import fr.igred.omero.exception.ExceptionHandler;
 import fr.igred.omero.exception.ServiceException;
 import fr.igred.omero.meta.Experimenter;
 import ome.formats.OMEROMetadataStoreClient;
+import omero.api.RawPixelsStorePrx;
 import omero.gateway.Gateway;
 import omero.gateway.LoginCredentials;
 import omero.gateway.SecurityContext;
@@ -30,6 +32,7 @@ import omero.gateway.exception.DSOutOfServiceException;
 
 import java.util.NoSuchElementException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 import static java.lang.String.valueOf;
 
@@ -219,6 +222,98 @@ public interface ConnectionHandler {
     }
 
 
+    /**
+     * Retrieves a raw pixels store set to the specified pixels, reusing an idle one if possible.
+     * <p>The store has to be given back with {@link #releasePixelsStore(long, RawPixelsStorePrx)} once done, or
+     * {@link #discardPixelsStore(RawPixelsStorePrx)} if it should not be reused (e.g. after an error).</p>
+     *
+     * @param pixelsId The pixels ID.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    RawPixelsStorePrx getPixelsStore(long pixelsId)
+    throws ServiceException, AccessException;
+
+
+    /**
+     * Gives back a raw pixels store, so that it can be reused.
+     *
+     * @param pixelsId The pixels ID the store is set to.
+     * @param store    The raw pixels store.
+     */
+    void releasePixelsStore(long pixelsId, RawPixelsStorePrx store);
+
+
+    /**
+     * Closes a raw pixels store which should not be reused.
+     *
+     * @param store The raw pixels store.
+     */
+    void discardPixelsStore(RawPixelsStorePrx store);
+
+
+    /**
+     * Returns the local tile cache used when retrieving pixels, if any.
+     *
+     * @return The tile cache, or {@code null} if tiles are not cached.
+     */
+    TileCache getTileCache();
+
+
+    /**
+     * Sets the local tile cache used when retrieving pixels.
+     *
+     * @param tileCache The tile cache ({@code null} to disable caching).
+     */
+    void setTileCache(TileCache tileCache);
+
+
+    /**
+     * Returns the tile size (width, height) used when retrieving pixels.
+     *
+     * @return The tile size, or {@code null} if the size reported by the server is used.
+     */
+    int[] getTileSize();
+
+
+    /**
+     * Sets the tile size (width, height) used when retrieving pixels.
+     * <p>Requests are made of one or several tiles, within the {@link #getMaxTileBytes() byte budget}.</p>
+     *
+     * @param tileSize The tile size ({@code null} to use the size reported by the server).
+     */
+    void setTileSize(int[] tileSize);
+
+
+    /**
+     * Returns the maximum number of bytes retrieved by each pixels request.
+     *
+     * @return See above.
+     */
+    long getMaxTileBytes();
+
+
+    /**
+     * Sets the maximum number of bytes retrieved by each pixels request.
+     *
+     * @param maxTileBytes The maximum number of bytes (strictly positive).
+     */
+    void setMaxTileBytes(long maxTileBytes);
+
+
+    /**
+     * Returns the executor shared by the concurrent requests sent through this connection. Its daemon threads are
+     * created as needed and stopped on {@link #disconnect()}: callers bound the number of tasks they run at once
+     * (see {@link Batches#map(ExecutorService, java.util.List, Batches.BatchFunction, int, String)}).
+     *
+     * @return See above.
+     */
+    ExecutorService getExecutor();
+
+
     /**
      * Returns a ConnectionHandler associated with the provided username.
      * <p>The user calling this function needs to have administrator rights.
@@ -33,8 +33,10 @@ import omero.model.IObject;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 import static fr.igred.omero.exception.ExceptionHandler.call;
@@ -83,6 +85,26 @@ public interface DataManager {
     TablesFacility getTablesFacility() throws ExecutionException;
 
 
+    /**
+     * Returns the executor shared by the concurrent requests sent through this connection.
+     *
+     * @return See above.
+     *
+     * @see ConnectionHandler#getExecutor()
+     */
+    ExecutorService getExecutor();
+
+
+    /**
+     * Notifies that objects were saved or deleted on OMERO, so that local copies (e.g. cached objects) are discarded.
+     * <p>Called by the save and delete methods of this interface. Does nothing by default.</p>
+     *
+     * @param objects The saved or deleted OMERO objects.
+     */
+    default void invalidateCache(Collection<? extends IObject> objects) {
+    }
+
+
     /**
      * Deletes multiple objects from OMERO.
      *
@@ -177,9 +199,36 @@ public interface DataManager {
      */
     default IObject save(IObject object)
     throws ServiceException, AccessException, ExecutionException {
-        return call(getDMFacility(),
-                    d -> d.saveAndReturnObject(getCtx(), object),
-                    "Cannot save object");
+        try {
+            return call(getDMFacility(),
+                        d -> d.saveAndReturnObject(getCtx(), object),
+                        "Cannot save object");
+        } finally {
+            invalidateCache(Collections.singletonList(object));
+        }
+    }
+
+
+    /**
+     * Saves multiple objects on OMERO.
+     *
+     * @param objects The OMERO objects.
+     *
+     * @return The saved OMERO objects.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    default List<IObject> save(List<IObject> objects)
+    throws ServiceException, AccessException, ExecutionException {
+        try {
+            return call(getDMFacility(),
+                        d -> d.saveAndReturnObject(getCtx(), objects, null, null),
+                        "Cannot save objects");
+        } finally {
+            invalidateCache(objects);
+        }
     }
 
 
@@ -196,11 +245,15 @@ public interface DataManager {
     default void delete(IObject object)
     throws ServiceException, AccessException, ExecutionException, InterruptedException {
         final long wait = 500L;
-        ExceptionHandler.ofConsumer(getDMFacility(),
-                                    d -> d.delete(getCtx(), object).loop(10, wait))
-                        .rethrow(InterruptedException.class)
-                        .handleOMEROException("Cannot delete object")
-                        .rethrow();
+        try {
+            ExceptionHandler.ofConsumer(getDMFacility(),
+                                        d -> d.delete(getCtx(), object).loop(10, wait))
+                            .rethrow(InterruptedException.class)
+                            .handleOMEROException("Cannot delete object")
+                            .rethrow();
+        } finally {
+            invalidateCache(Collections.singletonList(object));
+        }
     }
 
 
@@ -217,11 +270,15 @@ public interface DataManager {
     default void delete(List<IObject> objects)
     throws ServiceException, AccessException, ExecutionException, InterruptedException {
         final long wait = 500L;
-        ExceptionHandler.ofConsumer(getDMFacility(),
-                                    d -> d.delete(getCtx(), objects).loop(10, wait))
-                        .rethrow(InterruptedException.class)
-                        .handleOMEROException("Cannot delete objects")
-                        .rethrow();
+        try {
+            ExceptionHandler.ofConsumer(getDMFacility(),
+                                        d -> d.delete(getCtx(), objects).loop(10, wait))
+                            .rethrow(InterruptedException.class)
+                            .handleOMEROException("Cannot delete objects")
+                            .rethrow();
+        } finally {
+            invalidateCache(objects);
+        }
     }
 
 
@@ -18,12 +18,14 @@
 package fr.igred.omero.client;
 
 
+import fr.igred.omero.core.TileCache;
 import fr.igred.omero.exception.AccessException;
 import fr.igred.omero.exception.ExceptionHandler;
 import fr.igred.omero.exception.ServiceException;
 import fr.igred.omero.meta.Experimenter;
 import fr.igred.omero.meta.ExperimenterWrapper;
 import ome.formats.OMEROMetadataStoreClient;
+import omero.api.RawPixelsStorePrx;
 import omero.gateway.Gateway;
 import omero.gateway.LoginCredentials;
 import omero.gateway.SecurityContext;
@@ -31,13 +33,18 @@ import omero.gateway.ServerInformation;
 import omero.gateway.exception.DSOutOfServiceException;
 import omero.gateway.model.ExperimenterData;
 import omero.log.SimpleLogger;
+import omero.model.IObject;
 
+import java.util.Collection;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+import static fr.igred.omero.exception.ExceptionHandler.call;
+
 
 /**
  * Basic class, containing the gateway, the security context, and the current user.
@@ -46,12 +53,18 @@ import java.util.concurrent.locks.ReentrantLock;
  */
 public class GatewayWrapper extends BrowserWrapper implements Client {
 
+    /** Default maximum number of bytes retrieved by each pixels request */
+    public static final long DEFAULT_MAX_TILE_BYTES = 32L * 1024 * 1024;
+
     /** Number of requested import stores */
     private final AtomicInteger storeUses = new AtomicInteger(0);
 
     /** Import store lock */
     private final Lock storeLock = new ReentrantLock(true);
 
+    /** Pool of raw pixels stores */
+    private final PixelsStorePool pixelsStores = new PixelsStorePool();
+
     /** Gateway linking the code to OMERO, only linked to one group. */
     private Gateway gateway;
 
@@ -61,6 +74,15 @@ public class GatewayWrapper extends BrowserWrapper implements Client {
     /** User */
     private Experimenter user;
 
+    /** Local tile cache */
+    private volatile TileCache tileCache;
+
+    /** Tile size used when retrieving pixels ({@code null} to use the server one) */
+    private volatile int[] tileSize;
+
+    /** Maximum number of bytes retrieved by each pixels request */
+    private volatile long maxTileBytes = DEFAULT_MAX_TILE_BYTES;
+
 
     /**
      * Constructor of the GatewayWrapper class. Initializes the gateway.
@@ -179,6 +201,9 @@ public class GatewayWrapper extends BrowserWrapper implements Client {
             boolean sudo = ctx.isSudo();
             storeUses.set(0);
             closeImport();
+            pixelsStores.clear();
+            clearCache();
+            shutdownExecutor();
             user = new ExperimenterWrapper(new ExperimenterData());
             ctx  = new SecurityContext(-1);
             ctx.setExperimenter(user.asDataObject());
@@ -198,6 +223,7 @@ public class GatewayWrapper extends BrowserWrapper implements Client {
      */
     @Override
     public void switchGroup(long groupId) {
+        pixelsStores.clear();
         boolean sudo = ctx.isSudo();
         ctx = new SecurityContext(groupId);
         ctx.setExperimenter(user.asDataObject());
@@ -207,6 +233,19 @@ public class GatewayWrapper extends BrowserWrapper implements Client {
     }
 
 
+    /**
+     * Removes objects which were saved or deleted on OMERO from the cache, as well as the parent and child of links.
+     *
+     * @param objects The saved or deleted OMERO objects.
+     */
+    @Override
+    public void invalidateCache(Collection<? extends IObject> objects) {
+        for (IObject object : objects) {
+            invalidateCache(object);
+        }
+    }
+
+
     /**
      * Creates or recycles the import store.
      *
@@ -237,6 +276,141 @@ public class GatewayWrapper extends BrowserWrapper implements Client {
     }
 
 
+    /**
+     * Retrieves a raw pixels store set to the specified pixels, reusing an idle one if possible.
+     *
+     * @param pixelsId The pixels ID.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    @Override
+    public RawPixelsStorePrx getPixelsStore(long pixelsId)
+    throws ServiceException, AccessException {
+        return call(pixelsStores,
+                    p -> p.borrow(gateway, ctx, pixelsId),
+                    "Cannot open raw pixels store for pixels " + pixelsId);
+    }
+
+
+    /**
+     * Gives back a raw pixels store, so that it can be reused.
+     *
+     * @param pixelsId The pixels ID the store is set to.
+     * @param store    The raw pixels store.
+     */
+    @Override
+    public void releasePixelsStore(long pixelsId, RawPixelsStorePrx store) {
+        pixelsStores.release(pixelsId, store);
+    }
+
+
+    /**
+     * Closes a raw pixels store which should not be reused.
+     *
+     * @param store The raw pixels store.
+     */
+    @Override
+    public void discardPixelsStore(RawPixelsStorePrx store) {
+        pixelsStores.discard(store);
+    }
+
+
+    /**
+     * Sets the maximum number of idle raw pixels stores kept for reuse.
+     *
+     * @param maxSize The maximum number of idle stores (0 to disable reuse).
+     */
+    public void setPixelsStorePoolSize(int maxSize) {
+        pixelsStores.setMaxSize(maxSize);
+    }
+
+
+    /**
+     * Sets the time after which idle raw pixels stores are closed.
+     *
+     * @param timeout The timeout.
+     * @param unit    The timeout unit.
+     */
+    public void setPixelsStoreIdleTimeout(long timeout, TimeUnit unit) {
+        pixelsStores.setIdleTimeout(timeout, unit);
+    }
+
+
+    /**
+     * Returns the local tile cache used when retrieving pixels, if any.
+     *
+     * @return The tile cache, or {@code null} if tiles are not cached.
+     */
+    @Override
+    public TileCache getTileCache() {
+        return tileCache;
+    }
+
+
+    /**
+     * Sets the local tile cache used when retrieving pixels.
+     *
+     * @param tileCache The tile cache ({@code null} to disable caching).
+     */
+    @Override
+    public void setTileCache(TileCache tileCache) {
+        this.tileCache = tileCache;
+    }
+
+
+    /**
+     * Returns the tile size (width, height) used when retrieving pixels.
+     *
+     * @return The tile size, or {@code null} if the size reported by the server is used.
+     */
+    @Override
+    public int[] getTileSize() {
+        return tileSize != null ? tileSize.clone() : null;
+    }
+
+
+    /**
+     * Sets the tile size (width, height) used when retrieving pixels.
+     *
+     * @param tileSize The tile size ({@code null} to use the size reported by the server).
+     */
+    @Override
+    public void setTileSize(int[] tileSize) {
+        if (tileSize != null && tileSize.length != 2) {
+            throw new IllegalArgumentException("Tile size should contain the width and the height");
+        }
+        this.tileSize = tileSize != null ? tileSize.clone() : null;
+    }
+
+
+    /**
+     * Returns the maximum number of bytes retrieved by each pixels request.
+     *
+     * @return See above.
+     */
+    @Override
+    public long getMaxTileBytes() {
+        return maxTileBytes;
+    }
+
+
+    /**
+     * Sets the maximum number of bytes retrieved by each pixels request.
+     *
+     * @param maxTileBytes The maximum number of bytes (strictly positive).
+     */
+    @Override
+    public void setMaxTileBytes(long maxTileBytes) {
+        if (maxTileBytes < 1) {
+            throw new IllegalArgumentException("Maximum tile bytes should be strictly positive: " + maxTileBytes);
+        }
+        this.maxTileBytes = maxTileBytes;
+    }
+
+
     /**
      * Returns a Client associated with the given username.
      * <p> All actions realized with the returned Client will be considered as his.
@@ -0,0 +1,386 @@
+/*
+ *  Copyright (C) 2020-2025 GReD
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ * Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+
+
+package fr.igred.omero.client;
+
+
+import fr.igred.omero.RemoteObject;
+import fr.igred.omero.containers.Dataset;
+import fr.igred.omero.containers.Project;
+import fr.igred.omero.core.Image;
+import fr.igred.omero.exception.AccessException;
+import fr.igred.omero.exception.ServiceException;
+import fr.igred.omero.screen.Plate;
+import fr.igred.omero.screen.PlateAcquisition;
+import fr.igred.omero.screen.PlateAcquisitionWrapper;
+import fr.igred.omero.screen.Screen;
+import fr.igred.omero.screen.Well;
+import omero.RLong;
+import omero.RType;
+import omero.api.IQueryPrx;
+import omero.gateway.model.PlateAcquisitionData;
+import omero.sys.ParametersI;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static fr.igred.omero.exception.ExceptionHandler.call;
+
+
+/**
+ * Parents of a set of images, indexed by image ID: datasets and projects, as well as wells, plates, plate
+ * acquisitions and screens.
+ * <p>See {@link Browser#getHierarchy(Collection)}.</p>
+ */
+public final class ImageHierarchy {
+
+    /** Query returning the dataset and project IDs (if any) for each image */
+    private static final String CONTAINERS_QUERY = "select dil.child.id, d.id, p.id" +
+                                                   " from DatasetImageLink dil" +
+                                                   " join dil.parent d" +
+                                                   " left outer join d.projectLinks pdl" +
+                                                   " left outer join pdl.parent p" +
+                                                   " where dil.child.id in (:ids)";
+
+    /** Query returning the well, plate, plate acquisition (if any) and screen (if any) IDs for each image */
+    private static final String SCREENS_QUERY = "select ws.image.id, w.id, pl.id, pa.id, s.id" +
+                                                " from WellSample ws" +
+                                                " join ws.well w" +
+                                                " join w.plate pl" +
+                                                " left outer join ws.plateAcquisition pa" +
+                                                " left outer join pl.screenLinks spl" +
+                                                " left outer join spl.parent s" +
+                                                " where ws.image.id in (:ids)";
+
+    /** Query returning plate acquisitions */
+    private static final String ACQUISITIONS_QUERY = "select pa from PlateAcquisition pa" +
+                                                     " join fetch pa.plate" +
+                                                     " where pa.id in (:ids)";
+
+    /** Image IDs */
+    private final Set<Long> imageIds;
+
+    /** Datasets, by image ID */
+    private final Map<Long, List<Dataset>> datasets;
+
+    /** Projects, by image ID */
+    private final Map<Long, List<Project>> projects;
+
+    /** Wells, by image ID */
+    private final Map<Long, List<Well>> wells;
+
+    /** Plates, by image ID */
+    private final Map<Long, List<Plate>> plates;
+
+    /** Plate acquisitions, by image ID */
+    private final Map<Long, List<PlateAcquisition>> acquisitions;
+
+    /** Screens, by image ID */
+    private final Map<Long, List<Screen>> screens;
+
+
+    /**
+     * Constructor of the ImageHierarchy class.
+     *
+     * @param imageIds     The image IDs.
+     * @param datasets     The datasets, by image ID.
+     * @param projects     The projects, by image ID.
+     * @param wells        The wells, by image ID.
+     * @param plates       The plates, by image ID.
+     * @param acquisitions The plate acquisitions, by image ID.
+     * @param screens      The screens, by image ID.
+     */
+    ImageHierarchy(Collection<Long> imageIds,
+                   Map<Long, List<Dataset>> datasets,
+                   Map<Long, List<Project>> projects,
+                   Map<Long, List<Well>> wells,
+                   Map<Long, List<Plate>> plates,
+                   Map<Long, List<PlateAcquisition>> acquisitions,
+                   Map<Long, List<Screen>> screens) {
+        this.imageIds     = Collections.unmodifiableSet(new TreeSet<>(imageIds));
+        this.datasets     = datasets;
+        this.projects     = projects;
+        this.wells        = wells;
+        this.plates       = plates;
+        this.acquisitions = acquisitions;
+        this.screens      = screens;
+    }
+
+
+    /**
+     * Retrieves the parents of the specified images, with two joined queries for each batch of
+     * {@link Browser#QUERY_PAGE_SIZE} images, followed by batched retrievals of the parents.
+     *
+     * @param browser The data browser.
+     * @param images  The images.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    static ImageHierarchy load(Browser browser, Collection<? extends Image> images)
+    throws ServiceException, AccessException, ExecutionException {
+        List<Long> imageIds = images.stream()
+                                    .map(RemoteObject::getId)
+                                    .distinct()
+                                    .sorted()
+                                    .collect(Collectors.toList());
+
+        Map<Long, Set<Long>> datasetIds = new HashMap<>(imageIds.size());
+        Map<Long, Set<Long>> projectIds = new HashMap<>(imageIds.size());
+        Map<Long, Set<Long>> wellIds    = new HashMap<>(imageIds.size());
+        Map<Long, Set<Long>> plateIds   = new HashMap<>(imageIds.size());
+        Map<Long, Set<Long>> acqIds     = new HashMap<>(imageIds.size());
+        Map<Long, Set<Long>> screenIds  = new HashMap<>(imageIds.size());
+
+        IQueryPrx qs    = browser.getQueryService();
+        String    error = "Cannot get the parents of images";
+        for (List<Long> batch : Batches.partition(imageIds, Browser.QUERY_PAGE_SIZE)) {
+            ParametersI params = new ParametersI();
+            params.addIds(batch);
+
+            List<List<RType>> rows = call(qs, q -> q.projection(CONTAINERS_QUERY, params), error);
+            for (List<RType> row : rows) {
+                link(datasetIds, row, 1);
+                link(projectIds, row, 2);
+            }
+            rows = call(qs, q -> q.projection(SCREENS_QUERY, params), error);
+            for (List<RType> row : rows) {
+                link(wellIds, row, 1);
+                link(plateIds, row, 2);
+                link(acqIds, row, 3);
+                link(screenIds, row, 4);
+            }
+        }
+
+        List<PlateAcquisition> acquisitions = new ArrayList<>(0);
+        for (List<Long> batch : Batches.partition(values(acqIds), Browser.QUERY_PAGE_SIZE)) {
+            ParametersI params = new ParametersI();
+            params.addIds(batch);
+            call(qs, q -> q.findAllByQuery(ACQUISITIONS_QUERY, params), error)
+                    .stream()
+                    .map(omero.model.PlateAcquisition.class::cast)
+                    .map(PlateAcquisitionData::new)
+                    .map(PlateAcquisitionWrapper::new)
+                    .forEach(acquisitions::add);
+        }
+
+        return new ImageHierarchy(imageIds,
+                                  index(datasetIds, browser.getDatasets(toArray(datasetIds))),
+                                  index(projectIds, browser.getProjects(toArray(projectIds))),
+                                  index(wellIds, browser.getWells(toArray(wellIds))),
+                                  index(plateIds, browser.getPlates(toArray(plateIds))),
+                                  index(acqIds, acquisitions),
+                                  index(screenIds, browser.getScreens(toArray(screenIds))));
+    }
+
+
+    /**
+     * Adds the ID found in a column of a query result to the IDs linked to the image (first column).
+     *
+     * @param links  The linked IDs, by image ID.
+     * @param row    The query result row.
+     * @param column The column index.
+     */
+    private static void link(Map<Long, Set<Long>> links, List<? extends RType> row, int column) {
+        RType value = row.get(column);
+        if (value instanceof RLong) {
+            long imageId = ((RLong) row.get(0)).getValue();
+            links.computeIfAbsent(imageId, k -> new TreeSet<>()).add(((RLong) value).getValue());
+        }
+    }
+
+
+    /**
+     * Returns all the distinct linked IDs.
+     *
+     * @param links The linked IDs, by image ID.
+     *
+     * @return See above.
+     */
+    private static Set<Long> values(Map<Long, Set<Long>> links) {
+        Set<Long> ids = new TreeSet<>();
+        links.values().forEach(ids::addAll);
+        return ids;
+    }
+
+
+    /**
+     * Returns all the distinct linked IDs, as an array.
+     *
+     * @param links The linked IDs, by image ID.
+     *
+     * @return See above.
+     */
+    private static Long[] toArray(Map<Long, Set<Long>> links) {
+        return values(links).toArray(new Long[0]);
+    }
+
+
+    /**
+     * Associates each image ID with the objects whose IDs are linked to it.
+     *
+     * @param links   The linked object IDs, by image ID.
+     * @param objects The linked objects.
+     * @param <T>     The type of objects.
+     *
+     * @return The objects linked to each image, sorted by ID.
+     */
+    private static <T extends RemoteObject> Map<Long, List<T>> index(Map<Long, ? extends Collection<Long>> links,
+                                                                     Collection<? extends T> objects) {
+        Map<Long, T> byId = objects.stream()
+                                   .collect(Collectors.toMap(RemoteObject::getId,
+                                                             Function.identity(),
+                                                             (o1, o2) -> o1));
+
+        Map<Long, List<T>> indexed = new HashMap<>(links.size());
+        for (Map.Entry<Long, ? extends Collection<Long>> entry : links.entrySet()) {
+            List<T> linked = new ArrayList<>(entry.getValue().size());
+            for (Long id : entry.getValue()) {
+                T object = byId.get(id);
+                if (object != null) {
+                    linked.add(object);
+                }
+            }
+            linked.sort(Comparator.comparing(RemoteObject::getId));
+            indexed.put(entry.getKey(), Collections.unmodifiableList(linked));
+        }
+        return indexed;
+    }
+
+
+    /**
+     * Returns the objects linked to an image.
+     *
+     * @param map     The objects, by image ID.
+     * @param imageId The image ID.
+     * @param <T>     The type of objects.
+     *
+     * @return See above.
+     */
+    private static <T> List<T> get(Map<Long, List<T>> map, long imageId) {
+        return map.getOrDefault(imageId, Collections.emptyList());
+    }
+
+
+    /**
+     * Returns the IDs of the images.
+     *
+     * @return See above.
+     */
+    public Set<Long> getImageIds() {
+        return imageIds;
+    }
+
+
+    /**
+     * Returns the datasets containing the specified image.
+     *
+     * @param imageId The image ID.
+     *
+     * @return See above.
+     */
+    public List<Dataset> getDatasets(long imageId) {
+        return get(datasets, imageId);
+    }
+
+
+    /**
+     * Returns the projects containing the specified image.
+     *
+     * @param imageId The image ID.
+     *
+     * @return See above.
+     */
+    public List<Project> getProjects(long imageId) {
+        return get(projects, imageId);
+    }
+
+
+    /**
+     * Returns the wells containing the specified image.
+     *
+     * @param imageId The image ID.
+     *
+     * @return See above.
+     */
+    public List<Well> getWells(long imageId) {
+        return get(wells, imageId);
+    }
+
+
+    /**
+     * Returns the plates containing the specified image.
+     *
+     * @param imageId The image ID.
+     *
+     * @return See above.
+     */
+    public List<Plate> getPlates(long imageId) {
+        return get(plates, imageId);
+    }
+
+
+    /**
+     * Returns the plate acquisitions containing the specified image.
+     *
+     * @param imageId The image ID.
+     *
+     * @return See above.
+     */
+    public List<PlateAcquisition> getPlateAcquisitions(long imageId) {
+        return get(acquisitions, imageId);
+    }
+
+
+    /**
+     * Returns the screens containing the specified image.
+     *
+     * @param imageId The image ID.
+     *
+     * @return See above.
+     */
+    public List<Screen> getScreens(long imageId) {
+        return get(screens, imageId);
+    }
+
+
+    /**
+     * Checks if the specified image is orphaned (neither in a dataset nor in a well).
+     *
+     * @param imageId The image ID.
+     *
+     * @return {@code true} if the image is orphaned, {@code false} otherwise.
+     */
+    public boolean isOrphaned(long imageId) {
+        return get(datasets, imageId).isEmpty() && get(wells, imageId).isEmpty();
+    }
+
+}
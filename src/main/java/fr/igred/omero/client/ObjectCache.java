@@ -0,0 +1,272 @@
+/*
+ *  Copyright (C) 2020-2025 GReD
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ * Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+
+
+package fr.igred.omero.client;
+
+
+import omero.gateway.model.DataObject;
+import omero.gateway.util.PojoMapper;
+import omero.model.IObject;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Cache of objects retrieved from OMERO, indexed by class, ID and group.
+ * <p>Entries expire after a given time, and the least recently used entries are evicted first when the cache is full.
+ * The cache is disabled when its maximum size is 0.</p>
+ * <p>Objects are copied when they are added and retrieved. Only the underlying OMERO object is copied (shallow copy):
+ * changes to its own fields are neither seen by other callers nor kept in the cache, but the objects it references
+ * (details, loaded objects such as pixels, and link collections) are shared with the cached copy and should not be
+ * modified.</p>
+ */
+final class ObjectCache {
+
+    /** Cached objects, in access order */
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Maximum number of cached objects */
+    private int maxSize;
+
+    /** Time to live of each entry, in nanoseconds */
+    private long ttl;
+
+    /** Number of objects found in the cache */
+    private long hits;
+
+    /** Number of objects not found in the cache */
+    private long misses;
+
+
+    /**
+     * Constructor of the ObjectCache class. The cache is initially disabled.
+     */
+    ObjectCache() {
+    }
+
+
+    /**
+     * Returns a shallow copy of an object: the fields of the underlying OMERO object are copied, but the objects it
+     * references are shared.
+     *
+     * @param object The object.
+     * @param klass  The object class.
+     * @param <T>    The type of object.
+     *
+     * @return See above.
+     */
+    private static <T extends DataObject> T copy(T object, Class<T> klass) {
+        return klass.cast(PojoMapper.asDataObject((IObject) object.asIObject().clone()));
+    }
+
+
+    /**
+     * Sets the maximum size of the cache and the time to live of its entries. Current entries are discarded.
+     *
+     * @param maxSize The maximum number of cached objects (0 to disable the cache).
+     * @param ttl     The time to live of each entry.
+     * @param unit    The time unit of the time to live.
+     */
+    synchronized void configure(int maxSize, long ttl, TimeUnit unit) {
+        if (maxSize < 0 || ttl < 0) {
+            throw new IllegalArgumentException("Cache size and time to live should be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttl     = unit.toNanos(ttl);
+        entries.clear();
+    }
+
+
+    /**
+     * Retrieves an object from the cache.
+     *
+     * @param klass The object class.
+     * @param id    The object ID.
+     * @param group The group ID.
+     * @param <T>   The type of object.
+     *
+     * @return A copy of the cached object, or {@code null} if it is absent or expired, or if the cache is disabled.
+     */
+    synchronized <T extends DataObject> T get(Class<T> klass, long id, long group) {
+        T object = null;
+        if (maxSize > 0) {
+            Key   key   = new Key(klass, id, group);
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiry - System.nanoTime() > 0) {
+                object = copy(klass.cast(entry.value), klass);
+                hits++;
+            } else {
+                if (entry != null) {
+                    entries.remove(key);
+                }
+                misses++;
+            }
+        }
+        return object;
+    }
+
+
+    /**
+     * Adds a copy of an object to the cache, evicting the least recently used objects if needed.
+     *
+     * @param klass  The object class.
+     * @param id     The object ID.
+     * @param group  The group ID.
+     * @param object The object.
+     * @param <T>    The type of object.
+     */
+    synchronized <T extends DataObject> void put(Class<T> klass, long id, long group, T object) {
+        if (maxSize > 0) {
+            entries.put(new Key(klass, id, group), new Entry(copy(object, klass), System.nanoTime() + ttl));
+            Iterator<Key> it = entries.keySet().iterator();
+            while (entries.size() > maxSize && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+
+    /**
+     * Removes the objects with the specified ID from the cache, whatever their class or group.
+     *
+     * @param id The object ID.
+     */
+    synchronized void invalidate(long id) {
+        entries.keySet().removeIf(key -> key.id == id);
+    }
+
+
+    /**
+     * Removes all objects from the cache.
+     */
+    synchronized void clear() {
+        entries.clear();
+    }
+
+
+    /**
+     * Returns the number of objects currently cached.
+     *
+     * @return See above.
+     */
+    synchronized int size() {
+        return entries.size();
+    }
+
+
+    /**
+     * Returns the number of objects found in the cache.
+     *
+     * @return See above.
+     */
+    synchronized long getHits() {
+        return hits;
+    }
+
+
+    /**
+     * Returns the number of objects looked up and not found in the cache.
+     *
+     * @return See above.
+     */
+    synchronized long getMisses() {
+        return misses;
+    }
+
+
+    /**
+     * Cached object, with its expiration time.
+     */
+    private static final class Entry {
+
+        /** The cached object */
+        private final Object value;
+
+        /** The expiration time, as given by {@link System#nanoTime()} */
+        private final long expiry;
+
+
+        /**
+         * Constructor of the Entry class.
+         *
+         * @param value  The cached object.
+         * @param expiry The expiration time.
+         */
+        private Entry(Object value, long expiry) {
+            this.value  = value;
+            this.expiry = expiry;
+        }
+
+    }
+
+
+    /**
+     * Cache key: object class, ID and group.
+     */
+    private static final class Key {
+
+        /** The object class */
+        private final Class<?> klass;
+
+        /** The object ID */
+        private final long id;
+
+        /** The group ID */
+        private final long group;
+
+
+        /**
+         * Constructor of the Key class.
+         *
+         * @param klass The object class.
+         * @param id    The object ID.
+         * @param group The group ID.
+         */
+        private Key(Class<?> klass, long id, long group) {
+            this.klass = klass;
+            this.id    = id;
+            this.group = group;
+        }
+
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (object == null || getClass() != object.getClass()) {
+                return false;
+            }
+            Key key = (Key) object;
+            return id == key.id && group == key.group && klass.equals(key.klass);
+        }
+
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(klass, id, group);
+        }
+
+    }
+
+}
@@ -0,0 +1,331 @@
+/*
+ *  Copyright (C) 2020-2025 GReD
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ * Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.igred.omero.client;
+
+
+import omero.ServerError;
+import omero.api.RawPixelsStorePrx;
+import omero.gateway.Gateway;
+import omero.gateway.SecurityContext;
+import omero.gateway.exception.DSOutOfServiceException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.WARNING;
+
+
+/**
+ * Pool of raw pixels stores, so that consecutive pixels reads do not have to create and initialize a new store.
+ * <p>Idle stores are kept for a limited time, up to a maximum number. A store is preferably reused for the same
+ * pixels; otherwise, the least recently used idle store is reset to the requested pixels.</p>
+ * <p>While there are idle stores, they are periodically checked and closed once their timeout has expired, even if
+ * no other store is requested. Borrowed stores are tracked, so that a store borrowed before {@link #clear()} (e.g.
+ * before a group switch) is closed when it is released, instead of being reused in another context.</p>
+ */
+final class PixelsStorePool {
+
+    /** Default maximum number of idle stores */
+    static final int DEFAULT_MAX_SIZE = 8;
+
+    /** Default idle timeout, in milliseconds */
+    static final long DEFAULT_IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+
+    /** Shared scheduler closing expired idle stores */
+    private static final ScheduledExecutorService REAPER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "pixels-store-reaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Idle stores, from the least recently used to the most recent */
+    private final Deque<IdleStore> stores = new ArrayDeque<>(DEFAULT_MAX_SIZE);
+
+    /** Borrowed stores which can be returned to the pool */
+    private final Set<RawPixelsStorePrx> borrowed = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** Number of times the pool was cleared */
+    private long generation;
+
+    /** Scheduled task closing expired idle stores, while there are idle stores */
+    private ScheduledFuture<?> reaper;
+
+    /** Maximum number of idle stores */
+    private volatile int maxSize = DEFAULT_MAX_SIZE;
+
+    /** Idle timeout, in milliseconds */
+    private volatile long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+
+    /**
+     * Closes a raw pixels store, logging a warning if it fails.
+     *
+     * @param store The raw pixels store.
+     */
+    private static void close(RawPixelsStorePrx store) {
+        try {
+            store.close();
+        } catch (ServerError | RuntimeException e) {
+            Logger.getLogger(PixelsStorePool.class.getName())
+                  .log(WARNING, "Error while closing raw pixels store", e);
+        }
+    }
+
+
+    /**
+     * Removes the stores which have been idle for too long, or in excess.
+     * <p>Has to be called while holding the lock on this pool.</p>
+     *
+     * @param removed The list where removed stores are added.
+     */
+    private void evict(List<? super RawPixelsStorePrx> removed) {
+        long now = System.currentTimeMillis();
+        while (!stores.isEmpty()
+               && (stores.size() > maxSize || now - stores.peekFirst().since > idleTimeout)) {
+            removed.add(stores.pollFirst().store);
+        }
+    }
+
+
+    /**
+     * Schedules the periodic removal of expired idle stores, if there are idle stores and it is not scheduled yet.
+     * <p>Has to be called while holding the lock on this pool.</p>
+     */
+    private void scheduleReaper() {
+        if (reaper == null && !stores.isEmpty()) {
+            long period = Math.max(1L, idleTimeout / 2);
+            reaper = REAPER.scheduleWithFixedDelay(this::reap, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+
+    /**
+     * Cancels the periodic removal of expired idle stores.
+     * <p>Has to be called while holding the lock on this pool.</p>
+     */
+    private void cancelReaper() {
+        if (reaper != null) {
+            reaper.cancel(false);
+            reaper = null;
+        }
+    }
+
+
+    /**
+     * Closes the expired idle stores, and stops checking once there is no idle store left.
+     */
+    private void reap() {
+        List<RawPixelsStorePrx> removed = new ArrayList<>(0);
+        synchronized (this) {
+            evict(removed);
+            if (stores.isEmpty()) {
+                cancelReaper();
+            }
+        }
+        removed.forEach(PixelsStorePool::close);
+    }
+
+
+    /**
+     * Retrieves an idle store for the specified pixels, or any idle store if none is found.
+     * <p>Has to be called while holding the lock on this pool.</p>
+     *
+     * @param pixelsId The pixels ID.
+     *
+     * @return See above (or {@code null} if there is no idle store).
+     */
+    private IdleStore poll(long pixelsId) {
+        Iterator<IdleStore> it = stores.descendingIterator();
+        while (it.hasNext()) {
+            IdleStore idle = it.next();
+            if (idle.pixelsId == pixelsId) {
+                it.remove();
+                return idle;
+            }
+        }
+        return stores.pollFirst();
+    }
+
+
+    /**
+     * Borrows a raw pixels store, set to the specified pixels.
+     *
+     * @param gateway  The gateway.
+     * @param ctx      The security context.
+     * @param pixelsId The pixels ID.
+     *
+     * @return See above.
+     *
+     * @throws DSOutOfServiceException If the connection is broken, or not logged in.
+     * @throws ServerError             Server error.
+     */
+    RawPixelsStorePrx borrow(Gateway gateway, SecurityContext ctx, long pixelsId)
+    throws DSOutOfServiceException, ServerError {
+        List<RawPixelsStorePrx> removed = new ArrayList<>(0);
+        IdleStore               idle;
+        long                    borrowedGeneration;
+        synchronized (this) {
+            evict(removed);
+            idle               = poll(pixelsId);
+            borrowedGeneration = generation;
+        }
+        removed.forEach(PixelsStorePool::close);
+
+        RawPixelsStorePrx store;
+        if (idle != null && idle.pixelsId == pixelsId) {
+            store = idle.store;
+        } else {
+            store = idle != null ? idle.store : gateway.createPixelsStore(ctx);
+            try {
+                store.setPixelsId(pixelsId, false);
+            } catch (ServerError | RuntimeException e) {
+                close(store);
+                throw e;
+            }
+        }
+        synchronized (this) {
+            if (borrowedGeneration == generation) {
+                borrowed.add(store);
+            }
+        }
+        return store;
+    }
+
+
+    /**
+     * Returns a raw pixels store to the pool.
+     * <p>The store is closed instead if it was not borrowed from this pool since it was last cleared.</p>
+     *
+     * @param pixelsId The pixels ID the store is set to.
+     * @param store    The raw pixels store.
+     */
+    void release(long pixelsId, RawPixelsStorePrx store) {
+        List<RawPixelsStorePrx> removed = new ArrayList<>(1);
+        synchronized (this) {
+            if (borrowed.remove(store)) {
+                stores.addLast(new IdleStore(pixelsId, store));
+                evict(removed);
+                scheduleReaper();
+            } else {
+                removed.add(store);
+            }
+        }
+        removed.forEach(PixelsStorePool::close);
+    }
+
+
+    /**
+     * Closes a raw pixels store instead of returning it to the pool (e.g. after an error).
+     *
+     * @param store The raw pixels store.
+     */
+    void discard(RawPixelsStorePrx store) {
+        synchronized (this) {
+            borrowed.remove(store);
+        }
+        close(store);
+    }
+
+
+    /**
+     * Closes all idle stores, and makes sure currently borrowed stores are closed when they are released.
+     */
+    void clear() {
+        List<RawPixelsStorePrx> removed = new ArrayList<>(DEFAULT_MAX_SIZE);
+        synchronized (this) {
+            generation++;
+            borrowed.clear();
+            stores.forEach(idle -> removed.add(idle.store));
+            stores.clear();
+            cancelReaper();
+        }
+        removed.forEach(PixelsStorePool::close);
+    }
+
+
+    /**
+     * Sets the maximum number of idle stores.
+     *
+     * @param maxSize The maximum number of idle stores (0 to disable pooling).
+     */
+    void setMaxSize(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+        List<RawPixelsStorePrx> removed = new ArrayList<>(0);
+        synchronized (this) {
+            evict(removed);
+        }
+        removed.forEach(PixelsStorePool::close);
+    }
+
+
+    /**
+     * Sets the time after which idle stores are closed.
+     *
+     * @param timeout The timeout.
+     * @param unit    The timeout unit.
+     */
+    void setIdleTimeout(long timeout, TimeUnit unit) {
+        this.idleTimeout = unit.toMillis(timeout);
+        List<RawPixelsStorePrx> removed = new ArrayList<>(0);
+        synchronized (this) {
+            cancelReaper();
+            evict(removed);
+            scheduleReaper();
+        }
+        removed.forEach(PixelsStorePool::close);
+    }
+
+
+    /** Idle raw pixels store */
+    private static final class IdleStore {
+
+        /** Pixels ID the store is set to */
+        private final long pixelsId;
+
+        /** Raw pixels store */
+        private final RawPixelsStorePrx store;
+
+        /** Time since the store is idle */
+        private final long since;
+
+
+        /**
+         * Constructor of the IdleStore class.
+         *
+         * @param pixelsId The pixels ID.
+         * @param store    The raw pixels store.
+         */
+        IdleStore(long pixelsId, RawPixelsStorePrx store) {
+            this.pixelsId = pixelsId;
+            this.store    = store;
+            this.since    = System.currentTimeMillis();
+        }
+
+    }
+
+}
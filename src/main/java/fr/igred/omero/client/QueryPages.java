@@ -0,0 +1,152 @@
+/*
+ *  Copyright (C) 2020-2025 GReD
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ * Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+
+
+package fr.igred.omero.client;
+
+
+import fr.igred.omero.exception.AccessException;
+import fr.igred.omero.exception.ServiceException;
+import fr.igred.omero.exception.UncheckedOMEROException;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+
+/**
+ * Iterator over the results of a paged request, which only keeps the current page in memory and loads the next one
+ * on demand.
+ *
+ * @param <T> The type of results.
+ */
+final class QueryPages<T> implements Iterator<T> {
+
+    private final PageLoader<? extends T> loader;
+    private final int                     pageSize;
+
+    private Iterator<? extends T> page;
+    private int                   offset;
+    private boolean               last;
+
+
+    /**
+     * Constructor of the QueryPages class. Loads the first page.
+     *
+     * @param loader   The function loading a page.
+     * @param pageSize The page size.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    private QueryPages(PageLoader<? extends T> loader, int pageSize)
+    throws ServiceException, AccessException {
+        this.loader   = loader;
+        this.pageSize = pageSize;
+        load();
+    }
+
+
+    /**
+     * Returns a sequential stream lazily fetching the results page by page. The first page is loaded immediately, so
+     * that connection errors are reported to the caller; errors on later pages are thrown as
+     * {@link UncheckedOMEROException}.
+     *
+     * @param loader   The function loading a page.
+     * @param pageSize The page size.
+     * @param <T>      The type of results.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    static <T> Stream<T> stream(PageLoader<? extends T> loader, int pageSize)
+    throws ServiceException, AccessException {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        Iterator<T> it = new QueryPages<>(loader, pageSize);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED), false);
+    }
+
+
+    /**
+     * Loads the next page.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    private void load() throws ServiceException, AccessException {
+        List<? extends T> results = loader.load(offset, pageSize);
+        page = results.iterator();
+        offset += results.size();
+        last = results.size() < pageSize;
+    }
+
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext() && !last) {
+            try {
+                load();
+            } catch (ServiceException | AccessException e) {
+                last = true;
+                throw new UncheckedOMEROException("Cannot load results from offset " + offset, e);
+            }
+        }
+        return page.hasNext();
+    }
+
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more results");
+        }
+        return page.next();
+    }
+
+
+    /**
+     * Function loading a page of results.
+     *
+     * @param <T> The type of results.
+     */
+    @FunctionalInterface
+    interface PageLoader<T> {
+
+        /**
+         * Loads the results between {@code offset} and {@code offset + limit}.
+         *
+         * @param offset The index of the first result.
+         * @param limit  The maximum number of results.
+         *
+         * @return See above.
+         *
+         * @throws ServiceException Cannot connect to OMERO.
+         * @throws AccessException  Cannot access data.
+         */
+        List<? extends T> load(int offset, int limit) throws ServiceException, AccessException;
+
+    }
+
+}
@@ -36,12 +36,14 @@ import omero.model.DatasetI;
 import omero.model.DatasetImageLink;
 import omero.model.DatasetImageLinkI;
 import omero.model.IObject;
+import omero.sys.ParametersI;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
 
 import static java.util.stream.Collectors.toList;
 
@@ -150,7 +152,9 @@ public interface Dataset extends RepositoryObject {
 
 
     /**
-     * Gets all images in the dataset with a certain motif in their name from OMERO.
+     * Gets all images in the dataset from OMERO whose name contains the motif as a literal substring.
+     * <p>The motif is matched on the server with an HQL {@code like} query, where {@code %} and {@code _} are escaped.
+     * Use {@link #getImagesLike(Browser, String, Pattern)} to refine the results with a regular expression.</p>
      *
      * @param browser The data browser.
      * @param motif   Motif searched in an image name.
@@ -163,10 +167,37 @@ public interface Dataset extends RepositoryObject {
      */
     default List<Image> getImagesLike(Browser browser, String motif)
     throws ServiceException, AccessException, ExecutionException {
-        List<Image> images = getImages(browser);
+        String query = "select link.child.id from DatasetImageLink link" +
+                       " where link.parent.id = :id" +
+                       " and link.child.name like :motif escape '\\'" +
+                       " order by link.child.id";
+        ParametersI params = new ParametersI();
+        params.addId(getId());
+        params.add("motif", omero.rtypes.rstring(Browser.toLikePattern(motif)));
+
+        List<Long> ids = browser.findIdsByQuery(query, params);
+        return browser.getImages(ids.toArray(new Long[0]));
+    }
 
-        String regexp = ".*" + motif + ".*";
-        images.removeIf(image -> !image.getName().matches(regexp));
+
+    /**
+     * Gets all images in the dataset with a certain motif in their name from OMERO, then only keeps those whose name
+     * also contains a match for the specified regular expression.
+     *
+     * @param browser The data browser.
+     * @param motif   Motif searched in an image name.
+     * @param regex   Regular expression used to refine the results.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    default List<Image> getImagesLike(Browser browser, String motif, Pattern regex)
+    throws ServiceException, AccessException, ExecutionException {
+        List<Image> images = getImagesLike(browser, motif);
+        images.removeIf(image -> !regex.matcher(image.getName()).find());
         return images;
     }
 
@@ -241,7 +272,7 @@ public interface Dataset extends RepositoryObject {
      *
      * @param browser The data browser.
      * @param key     Name of the key researched.
-     * @param value   Value associated with the key.
+     * @param value   Value associated with the key ({@code null} to match any value).
      *
      * @return See above.
      *
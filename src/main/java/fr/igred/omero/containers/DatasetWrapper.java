@@ -18,7 +18,6 @@
 package fr.igred.omero.containers;
 
 
-import fr.igred.omero.RemoteObject;
 import fr.igred.omero.RepositoryObjectWrapper;
 import fr.igred.omero.client.Browser;
 import fr.igred.omero.client.Client;
@@ -31,18 +30,12 @@ import omero.gateway.model.DatasetData;
 import omero.gateway.model.ImageData;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 import static fr.igred.omero.exception.ExceptionHandler.call;
 import static java.util.Collections.singletonList;
-import static java.util.stream.Collectors.groupingBy;
-import static java.util.stream.Collectors.mapping;
-import static java.util.stream.Collectors.toList;
 
 
 /**
@@ -179,27 +172,7 @@ public class DatasetWrapper extends RepositoryObjectWrapper<DatasetData> impleme
     @Override
     public List<Image> getImagesWithKey(Browser browser, String key)
     throws ServiceException, AccessException, ExecutionException {
-        String error = "Cannot get images with key \"" + key + "\" from " + this;
-        Collection<ImageData> images = call(browser.getBrowseFacility(),
-                                            bf -> bf.getImagesForDatasets(browser.getCtx(),
-                                                                          singletonList(getId())),
-                                            error);
-
-        List<Image> selected = new ArrayList<>(images.size());
-        for (ImageData image : images) {
-            Image imageWrapper = new ImageWrapper(image);
-
-            Map<String, List<String>> pairs = imageWrapper.getKeyValuePairs(browser)
-                                                          .stream()
-                                                          .collect(groupingBy(Map.Entry::getKey,
-                                                                              mapping(Map.Entry::getValue, toList())));
-            if (pairs.get(key) != null) {
-                selected.add(imageWrapper);
-            }
-        }
-        selected.sort(Comparator.comparing(RemoteObject::getId));
-
-        return selected;
+        return getImagesWithKeyValuePair(browser, key, null);
     }
 
 
@@ -208,7 +181,7 @@ public class DatasetWrapper extends RepositoryObjectWrapper<DatasetData> impleme
      *
      * @param browser The data browser.
      * @param key     Name of the key researched.
-     * @param value   Value associated with the key.
+     * @param value   Value associated with the key ({@code null} to match any value).
      *
      * @return See above.
      *
@@ -219,26 +192,7 @@ public class DatasetWrapper extends RepositoryObjectWrapper<DatasetData> impleme
     @Override
     public List<Image> getImagesWithKeyValuePair(Browser browser, String key, String value)
     throws ServiceException, AccessException, ExecutionException {
-        Collection<ImageData> images = call(browser.getBrowseFacility(),
-                                            bf -> bf.getImagesForDatasets(browser.getCtx(),
-                                                                          singletonList(getId())),
-                                            "Cannot get images with key-value pair from " + this);
-
-        List<Image> selected = new ArrayList<>(images.size());
-        for (ImageData image : images) {
-            Image imageWrapper = new ImageWrapper(image);
-
-            Map<String, List<String>> pairs = imageWrapper.getKeyValuePairs(browser)
-                                                          .stream()
-                                                          .collect(groupingBy(Map.Entry::getKey,
-                                                                              mapping(Map.Entry::getValue, toList())));
-            if (pairs.get(key) != null && pairs.get(key).contains(value)) {
-                selected.add(imageWrapper);
-            }
-        }
-        selected.sort(Comparator.comparing(RemoteObject::getId));
-
-        return selected;
+        return KeyValueImages.inDataset(browser, getId(), key, value);
     }
 
 
@@ -169,10 +169,7 @@ public interface Folder extends RepositoryObject {
                 links.add(link);
             }
         }
-        ExceptionHandler.of(dm.getDMFacility(),
-                            d -> d.saveAndReturnObject(dm.getCtx(), links, null, null))
-                        .handleOMEROException("Cannot save links.")
-                        .rethrow();
+        dm.save(links);
     }
 
 
@@ -0,0 +1,133 @@
+/*
+ *  Copyright (C) 2020-2025 GReD
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ * Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+
+
+
+package fr.igred.omero.containers;
+
+
+import fr.igred.omero.client.Browser;
+import fr.igred.omero.core.Image;
+import fr.igred.omero.exception.AccessException;
+import fr.igred.omero.exception.ServiceException;
+import omero.sys.ParametersI;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+
+/**
+ * Queries the images of a container with a certain key, and optionally a certain value, in a single request.
+ */
+final class KeyValueImages {
+
+    /** Selects the IDs of the images in the dataset with the specified ID. */
+    private static final String DATASET_SCOPE = "select dil.child.id from DatasetImageLink dil" +
+                                                " where dil.parent.id = :id";
+
+    /** Selects the IDs of the images in the project with the specified ID. */
+    private static final String PROJECT_SCOPE = "select dil.child.id from DatasetImageLink dil" +
+                                                " where dil.parent.id in" +
+                                                " (select pdl.child.id from ProjectDatasetLink pdl" +
+                                                " where pdl.parent.id = :id)";
+
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private KeyValueImages() {
+        // Prevent instantiation
+    }
+
+
+    /**
+     * Gets the images in a dataset with a certain key, and optionally a certain value.
+     *
+     * @param browser   The data browser.
+     * @param datasetId The dataset ID.
+     * @param key       Name of the key researched.
+     * @param value     Value associated with the key ({@code null} to match any value).
+     *
+     * @return See above.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    static List<Image> inDataset(Browser browser, long datasetId, String key, String value)
+    throws ServiceException, AccessException, ExecutionException {
+        return find(browser, DATASET_SCOPE, datasetId, key, value);
+    }
+
+
+    /**
+     * Gets the images in a project with a certain key, and optionally a certain value.
+     *
+     * @param browser   The data browser.
+     * @param projectId The project ID.
+     * @param key       Name of the key researched.
+     * @param value     Value associated with the key ({@code null} to match any value).
+     *
+     * @return See above.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    static List<Image> inProject(Browser browser, long projectId, String key, String value)
+    throws ServiceException, AccessException, ExecutionException {
+        return find(browser, PROJECT_SCOPE, projectId, key, value);
+    }
+
+
+    /**
+     * Gets the images selected by one of the scopes above with a certain key, and optionally a certain value.
+     *
+     * @param browser The data browser.
+     * @param scope   Subquery selecting the IDs of the images in the container.
+     * @param id      The container ID.
+     * @param key     Name of the key researched.
+     * @param value   Value associated with the key ({@code null} to match any value).
+     *
+     * @return See above.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    private static List<Image> find(Browser browser, String scope, long id, String key, String value)
+    throws ServiceException, AccessException, ExecutionException {
+        ParametersI params = new ParametersI();
+        params.addId(id);
+        params.add("key", omero.rtypes.rstring(key));
+
+        String query = "select distinct link.parent.id from ImageAnnotationLink link" +
+                       " where link.child.id in" +
+                       " (select m.id from MapAnnotation m" +
+                       " join m.mapValue as mv" +
+                       " where mv.name = :key";
+        if (value != null) {
+            query += " and mv.value = :value";
+            params.add("value", omero.rtypes.rstring(value));
+        }
+        query += ") and link.parent.id in (" + scope + ") order by link.parent.id";
+
+        List<Long> ids = browser.findIdsByQuery(query, params);
+        return browser.getImages(ids.toArray(new Long[0]));
+    }
+
+}
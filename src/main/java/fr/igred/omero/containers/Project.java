@@ -30,11 +30,13 @@ import fr.igred.omero.exception.ServiceException;
 import omero.gateway.model.ProjectData;
 import omero.model.ProjectDatasetLink;
 import omero.model.ProjectDatasetLinkI;
+import omero.sys.ParametersI;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static fr.igred.omero.RemoteObject.distinct;
@@ -227,7 +229,9 @@ public interface Project extends RepositoryObject {
 
 
     /**
-     * Gets all images in the project with a certain motif in their name from OMERO.
+     * Gets all images in the project from OMERO whose name contains the motif as a literal substring.
+     * <p>The motif is matched on the server with an HQL {@code like} query, where {@code %} and {@code _} are escaped.
+     * Use {@link #getImagesLike(Browser, String, Pattern)} to refine the results with a regular expression.</p>
      *
      * @param browser The data browser.
      * @param motif   Motif searched in an image name.
@@ -240,13 +244,40 @@ public interface Project extends RepositoryObject {
      */
     default List<Image> getImagesLike(Browser browser, String motif)
     throws ServiceException, AccessException, ExecutionException {
-        Collection<Dataset> datasets = getDatasets();
+        String query = "select distinct link.child.id from DatasetImageLink link" +
+                       " where link.parent.id in" +
+                       " (select pdl.child.id from ProjectDatasetLink pdl" +
+                       " where pdl.parent.id = :id)" +
+                       " and link.child.name like :motif escape '\\'" +
+                       " order by link.child.id";
+        ParametersI params = new ParametersI();
+        params.addId(getId());
+        params.add("motif", omero.rtypes.rstring(Browser.toLikePattern(motif)));
+
+        List<Long> ids = browser.findIdsByQuery(query, params);
+        return browser.getImages(ids.toArray(new Long[0]));
+    }
 
-        Collection<List<Image>> lists = new ArrayList<>(datasets.size());
-        for (Dataset dataset : datasets) {
-            lists.add(dataset.getImagesLike(browser, motif));
-        }
-        return flatten(lists);
+
+    /**
+     * Gets all images in the project with a certain motif in their name from OMERO, then only keeps those whose name
+     * also contains a match for the specified regular expression.
+     *
+     * @param browser The data browser.
+     * @param motif   Motif searched in an image name.
+     * @param regex   Regular expression used to refine the results.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    default List<Image> getImagesLike(Browser browser, String motif, Pattern regex)
+    throws ServiceException, AccessException, ExecutionException {
+        List<Image> images = getImagesLike(browser, motif);
+        images.removeIf(image -> !regex.matcher(image.getName()).find());
+        return images;
     }
 
 
@@ -312,13 +343,7 @@ public interface Project extends RepositoryObject {
      */
     default List<Image> getImagesWithKey(Browser browser, String key)
     throws ServiceException, AccessException, ExecutionException {
-        Collection<Dataset> datasets = getDatasets();
-
-        Collection<List<Image>> lists = new ArrayList<>(datasets.size());
-        for (Dataset dataset : datasets) {
-            lists.add(dataset.getImagesWithKey(browser, key));
-        }
-        return flatten(lists);
+        return getImagesWithKeyValuePair(browser, key, null);
     }
 
 
@@ -327,7 +352,7 @@ public interface Project extends RepositoryObject {
      *
      * @param browser The data browser.
      * @param key     Name of the key researched.
-     * @param value   Value associated with the key.
+     * @param value   Value associated with the key ({@code null} to match any value).
      *
      * @return See above.
      *
@@ -337,13 +362,7 @@ public interface Project extends RepositoryObject {
      */
     default List<Image> getImagesWithKeyValuePair(Browser browser, String key, String value)
     throws ServiceException, AccessException, ExecutionException {
-        Collection<Dataset> datasets = getDatasets();
-
-        Collection<List<Image>> lists = new ArrayList<>(datasets.size());
-        for (Dataset dataset : datasets) {
-            lists.add(dataset.getImagesWithKeyValuePair(browser, key, value));
-        }
-        return flatten(lists);
+        return KeyValueImages.inProject(browser, getId(), key, value);
     }
 
 }
@@ -37,9 +37,7 @@ import fr.igred.omero.screen.WellSample;
 import fr.igred.omero.util.Bounds;
 import ij.ImagePlus;
 import omero.RLong;
-import omero.ServerError;
 import omero.api.RenderingEnginePrx;
-import omero.gateway.exception.DSOutOfServiceException;
 import omero.gateway.facility.TransferFacility;
 import omero.gateway.model.ImageData;
 import omero.model.IObject;
@@ -380,6 +378,30 @@ public interface Image extends RepositoryObject {
     }
 
 
+    /**
+     * Links ROIs to the image in OMERO, in chunks.
+     * <p>ROIs are split into chunks of at most {@code chunkSize} ROIs, each saved in its own request, with at most
+     * {@code threads} chunks saved concurrently. Chunks which cannot be saved do not prevent the others from being
+     * saved: their ROIs and errors are reported in the result, and the save can be resumed by saving
+     * {@link ROISaveResult#getPending()}.</p>
+     * <p>A chunk which failed on a timeout or an interruption may still have been committed by the server: the ROIs
+     * of the image should be checked before saving the pending ROIs again, otherwise they may be duplicated.</p>
+     * <p> DO NOT USE IT IF A SHAPE WAS DELETED !!!
+     *
+     * @param dm        The data manager.
+     * @param rois      ROIs to be added.
+     * @param chunkSize The maximum number of ROIs per request.
+     * @param threads   The maximum number of requests sent concurrently.
+     *
+     * @return The saved ROIs, along with the ROIs which could not be saved.
+     *
+     * @throws ExecutionException       A Facility can't be retrieved or instantiated.
+     * @throws IllegalArgumentException If the chunk size or the number of threads is not positive.
+     */
+    ROISaveResult saveROIs(DataManager dm, Collection<? extends ROI> rois, int chunkSize, int threads)
+    throws ExecutionException;
+
+
     /**
      * Gets all ROIs linked to the image in OMERO
      *
@@ -435,7 +457,7 @@ public interface Image extends RepositoryObject {
 
 
     /**
-     * Gets the Pixels for this image.
+     * Gets the Pixels for this image (the same instance while the default pixels do not change).
      *
      * @return See above.
      */
@@ -485,6 +507,101 @@ public interface Image extends RepositoryObject {
     throws ServiceException, AccessException, ExecutionException;
 
 
+    /**
+     * Gets the ImagePlus from the image within the specified boundaries, loading the planes concurrently.
+     * <p>Planes are retrieved and converted by {@code threads} workers, and the display range is computed from the
+     * range of each plane. The result is the same as {@link #toImagePlus(Client, int[], int[], int[], int[], int[])}.
+     * </p>
+     *
+     * @param client  The client handling the connection.
+     * @param xBounds Array containing the X bounds from which the pixels should be retrieved.
+     * @param yBounds Array containing the Y bounds from which the pixels should be retrieved.
+     * @param cBounds Array containing the C bounds from which the pixels should be retrieved.
+     * @param zBounds Array containing the Z bounds from which the pixels should be retrieved.
+     * @param tBounds Array containing the T bounds from which the pixels should be retrieved.
+     * @param threads The number of planes loaded concurrently.
+     *
+     * @return an ImagePlus from the ij library.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    If an error occurs while retrieving the plane data from the pixels source.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    ImagePlus toImagePlus(Client client,
+                          int[] xBounds,
+                          int[] yBounds,
+                          int[] cBounds,
+                          int[] zBounds,
+                          int[] tBounds,
+                          int threads)
+    throws ServiceException, AccessException, ExecutionException;
+
+
+    /**
+     * Gets the ImagePlus from the image within the specified boundaries, at the specified resolution level.
+     * <p>Bounds on the X and Y axes are expressed at this resolution level.</p>
+     *
+     * @param client  The client handling the connection.
+     * @param level   The resolution level (0 being the full resolution).
+     * @param xBounds Array containing the X bounds (at this level) from which the pixels should be retrieved.
+     * @param yBounds Array containing the Y bounds (at this level) from which the pixels should be retrieved.
+     * @param cBounds Array containing the C bounds from which the pixels should be retrieved.
+     * @param zBounds Array containing the Z bounds from which the pixels should be retrieved.
+     * @param tBounds Array containing the T bounds from which the pixels should be retrieved.
+     *
+     * @return an ImagePlus from the ij library.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    If an error occurs while retrieving the plane data from the pixels source.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    ImagePlus toImagePlus(Client client,
+                          int level,
+                          int[] xBounds,
+                          int[] yBounds,
+                          int[] cBounds,
+                          int[] zBounds,
+                          int[] tBounds)
+    throws ServiceException, AccessException, ExecutionException;
+
+
+    /**
+     * Gets the ImagePlus from the image at the specified resolution level.
+     *
+     * @param client The client handling the connection.
+     * @param level  The resolution level (0 being the full resolution).
+     *
+     * @return an ImagePlus from the ij library.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    If an error occurs while retrieving the plane data from the pixels source.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    default ImagePlus toImagePlus(Client client, int level)
+    throws ServiceException, AccessException, ExecutionException {
+        return toImagePlus(client, level, null, null, null, null, null);
+    }
+
+
+    /**
+     * Gets the ImagePlus from the image, downsampled by (at most) the specified factor.
+     * <p>The resolution level with the largest downsampling factor not exceeding the requested one is used.</p>
+     *
+     * @param client The client handling the connection.
+     * @param factor The downsampling factor.
+     *
+     * @return an ImagePlus from the ij library.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    If an error occurs while retrieving the plane data from the pixels source.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    default ImagePlus toImagePlusDownsampled(Client client, double factor)
+    throws ServiceException, AccessException, ExecutionException {
+        return toImagePlus(client, getPixels().getResolutionLevel(client, factor));
+    }
+
+
     /**
      * Gets the ImagePlus from the image, but only inside the ROI.
      *
@@ -592,26 +709,57 @@ public interface Image extends RepositoryObject {
      */
     default Color getChannelColor(Client client, int index)
     throws ServiceException, AccessException, ExecutionException {
-        long  pixelsId = getPixels().getId();
-        Color color    = getChannelImportedColor(client, index);
+        return getChannelColors(client).get(index);
+    }
+
+
+    /**
+     * Gets the current color of all the channels.
+     * <p>The rendering settings are retrieved through a single rendering engine session. If they cannot be retrieved,
+     * the original colors are returned.</p>
+     *
+     * @param client The client handling the connection.
+     *
+     * @return The color of each channel.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    default List<Color> getChannelColors(Client client)
+    throws ServiceException, AccessException, ExecutionException {
+        long          pixelsId = getPixels().getId();
+        List<Channel> channels = getChannels(client);
+        List<Color>   colors   = new ArrayList<>(channels.size());
         try {
-            RenderingEnginePrx re = client.getGateway()
-                                          .getRenderingService(client.getCtx(),
-                                                               pixelsId);
-            re.lookupPixels(pixelsId);
-            if (!(re.lookupRenderingDef(pixelsId))) {
-                re.resetDefaultSettings(true);
-                re.lookupRenderingDef(pixelsId);
+            int[][] rgbas = call(client.getGateway(), g -> {
+                RenderingEnginePrx re = g.getRenderingService(client.getCtx(), pixelsId);
+                try {
+                    re.lookupPixels(pixelsId);
+                    if (!re.lookupRenderingDef(pixelsId)) {
+                        re.resetDefaultSettings(true);
+                        re.lookupRenderingDef(pixelsId);
+                    }
+                    re.load();
+                    int[][] rgba = new int[channels.size()][];
+                    for (int c = 0; c < rgba.length; c++) {
+                        rgba[c] = re.getRGBA(c);
+                    }
+                    return rgba;
+                } finally {
+                    re.close();
+                }
+            }, "Cannot retrieve rendering settings for " + this);
+            for (int[] rgba : rgbas) {
+                colors.add(new Color(rgba[0], rgba[1], rgba[2], rgba[3]));
             }
-            re.load();
-            int[] rgba = re.getRGBA(index);
-            color = new Color(rgba[0], rgba[1], rgba[2], rgba[3]);
-            re.close();
-        } catch (DSOutOfServiceException | ServerError e) {
+        } catch (ServiceException | AccessException e) {
             Logger.getLogger(getClass().getName())
-                  .log(WARNING, "Error while retrieving current color", e);
+                  .log(WARNING, "Error while retrieving current colors", e);
+            colors.clear();
+            channels.forEach(channel -> colors.add(channel.getColor()));
         }
-        return color;
+        return colors;
     }
 
 
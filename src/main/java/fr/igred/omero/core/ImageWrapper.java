@@ -20,6 +20,7 @@ package fr.igred.omero.core;
 
 import fr.igred.omero.RemoteObject;
 import fr.igred.omero.RepositoryObjectWrapper;
+import fr.igred.omero.client.Batches;
 import fr.igred.omero.client.Browser;
 import fr.igred.omero.client.Client;
 import fr.igred.omero.client.ConnectionHandler;
@@ -39,15 +40,20 @@ import ij.IJ;
 import ij.ImagePlus;
 import ij.ImageStack;
 import ij.measure.Calibration;
+import ij.process.ByteProcessor;
+import ij.process.FloatProcessor;
 import ij.process.ImageProcessor;
 import ij.process.LUT;
+import ij.process.ShortProcessor;
 import loci.formats.FormatTools;
 import omero.ServerError;
 import omero.api.ThumbnailStorePrx;
 import omero.gateway.exception.DSOutOfServiceException;
+import omero.gateway.facility.ROIFacility;
 import omero.gateway.model.ChannelData;
 import omero.gateway.model.FolderData;
 import omero.gateway.model.ImageData;
+import omero.gateway.model.PixelsData;
 import omero.gateway.model.ROIData;
 import omero.gateway.model.ROIResult;
 import omero.gateway.model.WellSampleData;
@@ -55,14 +61,19 @@ import omero.model.Length;
 import omero.model.Time;
 
 import javax.imageio.ImageIO;
+import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static fr.igred.omero.RemoteObject.distinct;
 import static fr.igred.omero.exception.ExceptionHandler.call;
@@ -77,6 +88,9 @@ import static omero.rtypes.rint;
  */
 public class ImageWrapper extends RepositoryObjectWrapper<ImageData> implements Image {
 
+    /** Wrapper of the default pixels, kept so that its settings (e.g. read-ahead) apply to later reads */
+    private PixelsWrapper pixels;
+
 
     /**
      * Constructor of the class ImageWrapper
@@ -312,6 +326,81 @@ public class ImageWrapper extends RepositoryObjectWrapper<ImageData> implements
     }
 
 
+    /**
+     * Links ROIs to the image in OMERO, in chunks.
+     * <p>ROIs are split into chunks of at most {@code chunkSize} ROIs, each saved in its own request, with at most
+     * {@code threads} chunks saved concurrently. Chunks which cannot be saved do not prevent the others from being
+     * saved: their ROIs and errors are reported in the result, and the save can be resumed by saving
+     * {@link ROISaveResult#getPending()}.</p>
+     * <p>A chunk which failed on a timeout or an interruption may still have been committed by the server: the ROIs
+     * of the image should be checked before saving the pending ROIs again, otherwise they may be duplicated.</p>
+     * <p> DO NOT USE IT IF A SHAPE WAS DELETED !!!
+     *
+     * @param dm        The data manager.
+     * @param rois      ROIs to be added.
+     * @param chunkSize The maximum number of ROIs per request.
+     * @param threads   The maximum number of requests sent concurrently.
+     *
+     * @return The saved ROIs, along with the ROIs which could not be saved.
+     *
+     * @throws ExecutionException       A Facility can't be retrieved or instantiated.
+     * @throws IllegalArgumentException If the chunk size or the number of threads is not positive.
+     */
+    @Override
+    public ROISaveResult saveROIs(DataManager dm, Collection<? extends ROI> rois, int chunkSize, int threads)
+    throws ExecutionException {
+        if (chunkSize < 1 || threads < 1) {
+            throw new IllegalArgumentException("Chunk size and threads should be positive");
+        }
+        ROIFacility rf = dm.getRoiFacility();
+
+        List<ROI> toSave = new ArrayList<>(rois);
+        toSave.forEach(r -> r.setImage(this));
+        List<List<ROI>> chunks = Batches.partition(toSave, chunkSize);
+        String          error  = "Cannot link ROI to " + this;
+
+        AtomicReferenceArray<List<ROI>> saved  = new AtomicReferenceArray<>(chunks.size());
+        AtomicReferenceArray<Exception> errors = new AtomicReferenceArray<>(chunks.size());
+        List<Integer> indices = IntStream.range(0, chunks.size())
+                                         .boxed()
+                                         .collect(Collectors.toList());
+        try {
+            Batches.map(dm.getExecutor(), indices, i -> {
+                List<ROIData> roisData = chunks.get(i)
+                                               .stream()
+                                               .map(ROI::asDataObject)
+                                               .collect(Collectors.toList());
+                try {
+                    Collection<ROIData> results = call(rf,
+                                                       f -> f.saveROIs(dm.getCtx(), data.getId(), roisData),
+                                                       error);
+                    saved.set(i, wrap(results, ROIWrapper::new));
+                } catch (ServiceException | AccessException | RuntimeException e) {
+                    errors.set(i, e);
+                }
+                return null;
+            }, threads, error);
+        } catch (ServiceException | AccessException e) {
+            // Interrupted: the chunks which were not processed are kept as pending
+            for (int i = 0; i < chunks.size(); i++) {
+                if (saved.get(i) == null) {
+                    errors.compareAndSet(i, null, e);
+                }
+            }
+        }
+
+        ROISaveResult result = new ROISaveResult();
+        for (int i = 0; i < chunks.size(); i++) {
+            if (saved.get(i) != null) {
+                result.addSaved(saved.get(i));
+            } else {
+                result.addFailed(chunks.get(i), errors.get(i));
+            }
+        }
+        return result;
+    }
+
+
     /**
      * Gets all ROIs linked to the image in OMERO
      *
@@ -367,12 +456,157 @@ public class ImageWrapper extends RepositoryObjectWrapper<ImageData> implements
 
     /**
      * Gets the Pixels for this image.
+     * <p>The same instance is returned as long as the default pixels of the image do not change, so that its
+     * settings (e.g. {@link PixelsWrapper#setReadAhead(int) read-ahead}) also apply when the image is read, for
+     * example with {@link #toImagePlus(Client)}.</p>
      *
      * @return See above.
      */
     @Override
-    public PixelsWrapper getPixels() {
-        return new PixelsWrapper(data.getDefaultPixels());
+    public synchronized PixelsWrapper getPixels() {
+        PixelsData defaultPixels = data.getDefaultPixels();
+        if (pixels == null || pixels.asDataObject() != defaultPixels) {
+            int readAhead = 0;
+            if (pixels != null) {
+                readAhead = pixels.getReadAhead();
+                pixels.setReadAhead(0);
+            }
+            pixels = new PixelsWrapper(defaultPixels);
+            pixels.setReadAhead(readAhead);
+        }
+        return pixels;
+    }
+
+
+    /**
+     * Creates an empty hyperstack corresponding to the bounds, with the calibration of the pixels.
+     *
+     * @param pixels The pixels.
+     * @param bounds The bounds (at the requested resolution).
+     * @param bpp    Bytes per pixels.
+     * @param scaleX Downsampling factor on the X axis.
+     * @param scaleY Downsampling factor on the Y axis.
+     *
+     * @return See above.
+     */
+    private ImagePlus createHyperStack(Pixels pixels, Bounds bounds, int bpp, double scaleX, double scaleY) {
+        Coordinates start = bounds.getStart();
+        Coordinates size  = bounds.getSize();
+
+        ImagePlus imp = IJ.createHyperStack(data.getName(),
+                                            size.getX(),
+                                            size.getY(),
+                                            size.getC(),
+                                            size.getZ(),
+                                            size.getT(),
+                                            bpp * 8);
+
+        Calibration calibration = imp.getCalibration();
+        setCalibration(pixels, calibration);
+        calibration.pixelWidth *= scaleX;
+        calibration.pixelHeight *= scaleY;
+        calibration.xOrigin /= scaleX;
+        calibration.yOrigin /= scaleY;
+        calibration.xOrigin -= start.getX();
+        calibration.yOrigin -= start.getY();
+        calibration.zOrigin -= start.getZ();
+        imp.setCalibration(calibration);
+        return imp;
+    }
+
+
+    /**
+     * Sets the raw values of a plane in a stack and resets its display range.
+     *
+     * @param stack   The stack.
+     * @param n       The plane index in the stack.
+     * @param values  The raw values.
+     * @param bpp     Bytes per pixels.
+     * @param isFloat Whether the pixel type is a floating point type.
+     *
+     * @return The processor for this plane.
+     */
+    private static ImageProcessor setPlane(ImageStack stack, int n, byte[] values, int bpp, boolean isFloat) {
+        stack.setPixels(makeDataArray(values, bpp, isFloat, false), n);
+        ImageProcessor ip = stack.getProcessor(n);
+        ip.resetMinAndMax();
+        stack.setProcessor(ip, n);
+        return ip;
+    }
+
+
+    /**
+     * Creates a processor wrapping the raw values of a plane, with its display range reset.
+     *
+     * @param width   Width of the plane.
+     * @param height  Height of the plane.
+     * @param values  The raw values.
+     * @param bpp     Bytes per pixels.
+     * @param isFloat Whether the pixel type is a floating point type.
+     *
+     * @return See above.
+     *
+     * @throws IllegalArgumentException If the pixel type is not supported by ImageJ.
+     */
+    private static ImageProcessor createProcessor(int width, int height, byte[] values, int bpp, boolean isFloat) {
+        Object         array = makeDataArray(values, bpp, isFloat, false);
+        ImageProcessor ip;
+        if (array instanceof byte[]) {
+            ip = new ByteProcessor(width, height, (byte[]) array);
+        } else if (array instanceof short[]) {
+            ip = new ShortProcessor(width, height, (short[]) array, null);
+        } else if (array instanceof float[]) {
+            ip = new FloatProcessor(width, height, (float[]) array);
+        } else {
+            throw new IllegalArgumentException("Unsupported pixel type: " + array.getClass().getSimpleName());
+        }
+        ip.resetMinAndMax();
+        return ip;
+    }
+
+
+    /**
+     * Sets the display mode, range and LUTs of the ImagePlus, as well as its properties.
+     *
+     * @param client The client handling the connection.
+     * @param imp    The ImagePlus.
+     * @param bounds The bounds.
+     * @param min    The minimum value.
+     * @param max    The maximum value.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    Cannot access data.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    private void setDisplay(Client client, ImagePlus imp, Bounds bounds, double min, double max)
+    throws ServiceException, AccessException, ExecutionException {
+        Coordinates start = bounds.getStart();
+
+        imp.setOpenAsHyperStack(true);
+        imp.setDisplayMode(IJ.COMPOSITE);
+
+        imp.getProcessor().setMinAndMax(min, max);
+
+        int         sizeC  = bounds.getSize().getC();
+        LUT[]       luts   = imp.getLuts();
+        List<Color> colors = getChannelColors(client);
+        for (int c = 0; c < sizeC; ++c) {
+            luts[c] = LUT.createLutFromColor(colors.get(start.getC() + c));
+            imp.setC(c + 1);
+            imp.setLut(luts[c]);
+        }
+        if (imp.isComposite()) {
+            ((CompositeImage) imp).setLuts(luts);
+        }
+        imp.setPosition(1);
+        if (IJ.getVersion().compareTo("1.53a") >= 0) {
+            imp.setProp(IJ_ID_PROPERTY, getId());
+            imp.setProp("IMAGE_POS_X", start.getX());
+            imp.setProp("IMAGE_POS_Y", start.getY());
+            imp.setProp("IMAGE_POS_C", start.getC());
+            imp.setProp("IMAGE_POS_Z", start.getZ());
+            imp.setProp("IMAGE_POS_T", start.getT());
+        }
     }
 
 
@@ -403,8 +637,6 @@ public class ImageWrapper extends RepositoryObjectWrapper<ImageData> implements
         PixelsWrapper pixels = getPixels();
         pixels.loadPlanesInfo(client);
 
-        boolean createdRDF = pixels.createRawDataFacility(client);
-
         Bounds bounds = pixels.getBounds(xBounds, yBounds, cBounds, zBounds, tBounds);
 
         int startX = bounds.getStart().getX();
@@ -422,14 +654,7 @@ public class ImageWrapper extends RepositoryObjectWrapper<ImageData> implements
         int pixelType = FormatTools.pixelTypeFromString(pixels.getPixelType());
         int bpp       = FormatTools.getBytesPerPixel(pixelType);
 
-        ImagePlus imp = IJ.createHyperStack(data.getName(), sizeX, sizeY, sizeC, sizeZ, sizeT, bpp * 8);
-
-        Calibration calibration = imp.getCalibration();
-        setCalibration(pixels, calibration);
-        calibration.xOrigin -= startX;
-        calibration.yOrigin -= startY;
-        calibration.zOrigin -= startZ;
-        imp.setCalibration(calibration);
+        ImagePlus imp = createHyperStack(pixels, bounds, bpp, 1, 1);
 
         boolean isFloat = FormatTools.isFloatingPoint(pixelType);
 
@@ -452,46 +677,195 @@ public class ImageWrapper extends RepositoryObjectWrapper<ImageData> implements
                     byte[] tiles = pixels.getRawTile(client, pos, sizeX, sizeY, bpp);
 
                     int n = imp.getStackIndex(c + 1, z + 1, t + 1);
-                    stack.setPixels(makeDataArray(tiles, bpp, isFloat, false), n);
-                    ImageProcessor ip = stack.getProcessor(n);
-                    ip.resetMinAndMax();
 
+                    ImageProcessor ip = setPlane(stack, n, tiles, bpp, isFloat);
                     max = Math.max(ip.getMax(), max);
                     min = Math.min(ip.getMin(), min);
 
-                    stack.setProcessor(ip, n);
                     IJ.showProgress(n, progressTotal);
                 }
             }
         }
 
         imp.setStack(stack);
-        imp.setOpenAsHyperStack(true);
-        imp.setDisplayMode(IJ.COMPOSITE);
+        setDisplay(client, imp, bounds, min, max);
+        return imp;
+    }
 
-        imp.getProcessor().setMinAndMax(min, max);
 
-        LUT[] luts = imp.getLuts();
-        for (int c = 0; c < sizeC; ++c) {
-            luts[c] = LUT.createLutFromColor(getChannelColor(client, startC + c));
-            imp.setC(c + 1);
-            imp.setLut(luts[c]);
+    /**
+     * Gets the ImagePlus from the image within the specified boundaries, loading the planes concurrently.
+     * <p>Planes are retrieved and converted by {@code threads} workers on the executor shared by the connection
+     * (each using its own raw pixels store), and the display range is reduced from the range of each plane. The result
+     * is the same as {@link #toImagePlus(Client, int[], int[], int[], int[], int[])}.</p>
+     *
+     * @param client  The client handling the connection.
+     * @param xBounds Array containing the X bounds from which the pixels should be retrieved.
+     * @param yBounds Array containing the Y bounds from which the pixels should be retrieved.
+     * @param cBounds Array containing the C bounds from which the pixels should be retrieved.
+     * @param zBounds Array containing the Z bounds from which the pixels should be retrieved.
+     * @param tBounds Array containing the T bounds from which the pixels should be retrieved.
+     * @param threads The number of planes loaded concurrently.
+     *
+     * @return an ImagePlus from the ij library.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    If an error occurs while retrieving the plane data from the pixels source.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    @Override
+    public ImagePlus toImagePlus(Client client,
+                                 int[] xBounds,
+                                 int[] yBounds,
+                                 int[] cBounds,
+                                 int[] zBounds,
+                                 int[] tBounds,
+                                 int threads)
+    throws ServiceException, AccessException, ExecutionException {
+        if (threads <= 1) {
+            return toImagePlus(client, xBounds, yBounds, cBounds, zBounds, tBounds);
         }
-        if (imp.isComposite()) {
-            ((CompositeImage) imp).setLuts(luts);
+        PixelsWrapper pixels = getPixels();
+        pixels.loadPlanesInfo(client);
+
+        Bounds      bounds = pixels.getBounds(xBounds, yBounds, cBounds, zBounds, tBounds);
+        Coordinates start  = bounds.getStart();
+        Coordinates size   = bounds.getSize();
+
+        int sizeX = size.getX();
+        int sizeY = size.getY();
+
+        int pixelType = FormatTools.pixelTypeFromString(pixels.getPixelType());
+        int bpp       = FormatTools.getBytesPerPixel(pixelType);
+
+        ImagePlus imp = createHyperStack(pixels, bounds, bpp, 1, 1);
+
+        boolean isFloat = FormatTools.isFloatingPoint(pixelType);
+
+        ImageStack stack = imp.getImageStack();
+
+        double min = imp.getProcessor().getMin();
+        double max = 0;
+
+        String error         = "Cannot read plane for " + this;
+        int    progressTotal = imp.getStackSize();
+        IJ.showProgress(0, progressTotal);
+
+        List<Integer>     indices   = new ArrayList<>(progressTotal);
+        List<Coordinates> positions = new ArrayList<>(progressTotal);
+        for (int t = 0; t < size.getT(); t++) {
+            for (int z = 0; z < size.getZ(); z++) {
+                for (int c = 0; c < size.getC(); c++) {
+                    positions.add(new Coordinates(start.getX(),
+                                                  start.getY(),
+                                                  start.getC() + c,
+                                                  start.getZ() + z,
+                                                  start.getT() + t));
+                    indices.add(imp.getStackIndex(c + 1, z + 1, t + 1));
+                }
+            }
         }
-        if (createdRDF) {
-            pixels.destroyRawDataFacility();
+
+        AtomicInteger        loaded     = new AtomicInteger();
+        List<ImageProcessor> processors = Batches.map(client.getExecutor(), positions, pos -> {
+            byte[] values = pixels.getRawTile(client, pos, sizeX, sizeY, bpp);
+            IJ.showProgress(loaded.incrementAndGet(), progressTotal);
+            return createProcessor(sizeX, sizeY, values, bpp, isFloat);
+        }, threads, error);
+
+        for (int i = 0; i < processors.size(); i++) {
+            ImageProcessor ip = processors.get(i);
+            stack.setPixels(ip.getPixels(), indices.get(i));
+            max = Math.max(ip.getMax(), max);
+            min = Math.min(ip.getMin(), min);
         }
-        imp.setPosition(1);
-        if (IJ.getVersion().compareTo("1.53a") >= 0) {
-            imp.setProp(IJ_ID_PROPERTY, getId());
-            imp.setProp("IMAGE_POS_X", startX);
-            imp.setProp("IMAGE_POS_Y", startY);
-            imp.setProp("IMAGE_POS_C", startC);
-            imp.setProp("IMAGE_POS_Z", startZ);
-            imp.setProp("IMAGE_POS_T", startT);
+
+        imp.setStack(stack);
+        setDisplay(client, imp, bounds, min, max);
+        return imp;
+    }
+
+
+    /**
+     * Gets the ImagePlus from the image within the specified boundaries, at the specified resolution level.
+     *
+     * @param client  The client handling the connection.
+     * @param level   The resolution level (0 being the full resolution).
+     * @param xBounds Array containing the X bounds (at this level) from which the pixels should be retrieved.
+     * @param yBounds Array containing the Y bounds (at this level) from which the pixels should be retrieved.
+     * @param cBounds Array containing the C bounds from which the pixels should be retrieved.
+     * @param zBounds Array containing the Z bounds from which the pixels should be retrieved.
+     * @param tBounds Array containing the T bounds from which the pixels should be retrieved.
+     *
+     * @return an ImagePlus from the ij library.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    If an error occurs while retrieving the plane data from the pixels source.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    @Override
+    public ImagePlus toImagePlus(Client client,
+                                 int level,
+                                 int[] xBounds,
+                                 int[] yBounds,
+                                 int[] cBounds,
+                                 int[] zBounds,
+                                 int[] tBounds)
+    throws ServiceException, AccessException, ExecutionException {
+        if (level == 0) {
+            return toImagePlus(client, xBounds, yBounds, cBounds, zBounds, tBounds);
         }
+        PixelsWrapper pixels = getPixels();
+        pixels.loadPlanesInfo(client);
+
+        int[]  levelSize = pixels.getResolutionLevels(client).get(level);
+        double scaleX    = (double) pixels.getSizeX() / levelSize[0];
+        double scaleY    = (double) pixels.getSizeY() / levelSize[1];
+
+        Bounds      bounds = pixels.getBounds(levelSize[0], levelSize[1], xBounds, yBounds, cBounds, zBounds, tBounds);
+        Coordinates start  = bounds.getStart();
+
+        int pixelType = FormatTools.pixelTypeFromString(pixels.getPixelType());
+        int bpp       = FormatTools.getBytesPerPixel(pixelType);
+
+        ImagePlus imp = createHyperStack(pixels, bounds, bpp, scaleX, scaleY);
+
+        boolean isFloat = FormatTools.isFloatingPoint(pixelType);
+
+        ImageStack stack = imp.getImageStack();
+
+        double min = imp.getProcessor().getMin();
+        double max = 0;
+
+        int progressTotal = imp.getStackSize();
+        IJ.showProgress(0, progressTotal);
+        try (RawPlaneCursor cursor = pixels.getRawPlanesAtLevel(client,
+                                                                level,
+                                                                xBounds,
+                                                                yBounds,
+                                                                cBounds,
+                                                                zBounds,
+                                                                tBounds,
+                                                                bpp,
+                                                                1)) {
+            while (cursor.hasNext()) {
+                RawPlane    plane = cursor.next();
+                Coordinates pos   = plane.getPosition();
+
+                int n = imp.getStackIndex(pos.getC() - start.getC() + 1,
+                                          pos.getZ() - start.getZ() + 1,
+                                          pos.getT() - start.getT() + 1);
+
+                ImageProcessor ip = setPlane(stack, n, plane.getValues(), bpp, isFloat);
+                max = Math.max(ip.getMax(), max);
+                min = Math.min(ip.getMin(), min);
+
+                IJ.showProgress(n, progressTotal);
+            }
+        }
+
+        imp.setStack(stack);
+        setDisplay(client, imp, bounds, min, max);
         return imp;
     }
 
@@ -0,0 +1,374 @@
+/*
+ *  Copyright (C) 2020-2025 GReD
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ * Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+
+package fr.igred.omero.core;
+
+
+import fr.igred.omero.client.ConnectionHandler;
+import fr.igred.omero.exception.AccessException;
+import fr.igred.omero.exception.ServiceException;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import static fr.igred.omero.exception.ExceptionHandler.call;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.logging.Level.WARNING;
+
+
+/**
+ * Tile cache storing each tile in a file of a local directory.
+ * <p>Tiles are stored in a subdirectory specific to the server (see {@link #MappedTileCache(Path, String, long)}),
+ * as pixels IDs are only unique within one server. The total size of the cached tiles is bounded: least recently used
+ * tiles are evicted first. Tiles already present in the subdirectory (from a previous session) are reused.</p>
+ * <p>Tiles are read and written without holding the cache lock, so concurrent readers are not serialized. Tiles are
+ * written to a temporary file first, which then atomically replaces the previous tile file, if any.</p>
+ */
+public class MappedTileCache implements TileCache {
+
+    /** Tile file extension */
+    private static final String EXTENSION = ".tile";
+
+    /** Temporary tile file extension */
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    /** Cache directory */
+    private final Path directory;
+
+    /** Maximum size of the cache, in bytes */
+    private final long maxSize;
+
+    /** Cached tiles, in access order */
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Current size of the cache, in bytes */
+    private long size;
+
+
+    /**
+     * Constructor of the MappedTileCache class.
+     * <p>The server identifier should change whenever pixels IDs may refer to other images, e.g. the database UUID
+     * (see {@link #MappedTileCache(Path, ConnectionHandler, long)}).</p>
+     *
+     * @param directory The cache directory (created if needed).
+     * @param server    The server identifier, used to name the subdirectory storing the tiles.
+     * @param maxSize   The maximum size of the cache, in bytes.
+     *
+     * @throws IOException If the directory cannot be created or read.
+     */
+    public MappedTileCache(Path directory, String server, long maxSize) throws IOException {
+        String name = server.replaceAll("[^A-Za-z0-9.-]", "_");
+        this.directory = Files.createDirectories(directory.resolve(name));
+        this.maxSize   = maxSize;
+        load();
+    }
+
+
+    /**
+     * Constructor of the MappedTileCache class, storing the tiles in a subdirectory specific to the database of the
+     * server the client is connected to.
+     *
+     * @param directory The cache directory (created if needed).
+     * @param client    The client handling the connection.
+     * @param maxSize   The maximum size of the cache, in bytes.
+     *
+     * @throws IOException      If the directory cannot be created or read.
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    public MappedTileCache(Path directory, ConnectionHandler client, long maxSize)
+    throws IOException, ServiceException, AccessException {
+        this(directory, getDatabaseUuid(client), maxSize);
+    }
+
+
+    /**
+     * Retrieves the UUID of the database of the server the client is connected to.
+     *
+     * @param client The client handling the connection.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    private static String getDatabaseUuid(ConnectionHandler client)
+    throws ServiceException, AccessException {
+        return call(client.getGateway(),
+                    g -> g.getConfigService(client.getCtx()).getDatabaseUuid(),
+                    "Cannot retrieve the server database UUID");
+    }
+
+
+    /**
+     * Returns the file name for a given key.
+     *
+     * @param key The tile key.
+     *
+     * @return See above.
+     */
+    private static String getFileName(Key key) {
+        return String.format("%d_%d_%d_%d_%d_%d_%d_%d%s",
+                             key.getPixelsId(),
+                             key.getStart().getC(),
+                             key.getStart().getZ(),
+                             key.getStart().getT(),
+                             key.getStart().getX(),
+                             key.getStart().getY(),
+                             key.getWidth(),
+                             key.getHeight(),
+                             EXTENSION);
+    }
+
+
+    /**
+     * Parses a file name to retrieve the corresponding key.
+     *
+     * @param fileName The file name.
+     *
+     * @return The key, or {@code null} if the name does not match.
+     */
+    private static Key parseFileName(String fileName) {
+        Key key = null;
+        if (fileName.endsWith(EXTENSION)) {
+            String[] parts = fileName.substring(0, fileName.length() - EXTENSION.length()).split("_");
+            if (parts.length == 8) {
+                try {
+                    key = new Key(Long.parseLong(parts[0]),
+                                  Integer.parseInt(parts[1]),
+                                  Integer.parseInt(parts[2]),
+                                  Integer.parseInt(parts[3]),
+                                  Integer.parseInt(parts[4]),
+                                  Integer.parseInt(parts[5]),
+                                  Integer.parseInt(parts[6]),
+                                  Integer.parseInt(parts[7]));
+                } catch (NumberFormatException e) {
+                    key = null;
+                }
+            }
+        }
+        return key;
+    }
+
+
+    /**
+     * Indexes the tiles already present in the directory, from the oldest to the most recent.
+     *
+     * @throws IOException If the directory cannot be read.
+     */
+    private void load() throws IOException {
+        List<Path> files = new ArrayList<>(0);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            stream.forEach(files::add);
+        }
+        files.sort(Comparator.comparingLong(f -> f.toFile().lastModified()));
+        synchronized (this) {
+            for (Path file : files) {
+                Key key = parseFileName(file.getFileName().toString());
+                if (key != null) {
+                    long length = Files.size(file);
+                    entries.put(key, new Entry(length));
+                    size += length;
+                }
+            }
+            evict();
+        }
+    }
+
+
+    /**
+     * Removes the least recently used tiles until the cache size is within bounds. Tiles whose file cannot be deleted
+     * are kept, so that the size stays accurate.
+     */
+    private void evict() {
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (size > maxSize && it.hasNext()) {
+            Map.Entry<Key, Entry> eldest = it.next();
+            if (delete(eldest.getKey())) {
+                size -= eldest.getValue().length;
+                it.remove();
+            }
+        }
+    }
+
+
+    /**
+     * Deletes the file corresponding to a tile.
+     *
+     * @param key The tile key.
+     *
+     * @return {@code true} if the file was deleted or did not exist.
+     */
+    private boolean delete(Key key) {
+        boolean deleted = true;
+        try {
+            Files.deleteIfExists(directory.resolve(getFileName(key)));
+        } catch (IOException e) {
+            Logger.getLogger(getClass().getName()).log(WARNING, "Could not delete cached tile: " + key, e);
+            deleted = false;
+        }
+        return deleted;
+    }
+
+
+    /**
+     * Retrieves a tile from the cache.
+     *
+     * @param key The tile key.
+     *
+     * @return The raw values of the tile, or {@code null} if the tile is not in the cache.
+     */
+    @Override
+    public byte[] get(Key key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            return null;
+        }
+        byte[] values = null;
+        try {
+            values = Files.readAllBytes(directory.resolve(getFileName(key)));
+        } catch (IOException e) {
+            Logger.getLogger(getClass().getName()).log(WARNING, "Could not read cached tile: " + key, e);
+            synchronized (this) {
+                // Only remove the entry if it was not replaced in the meantime
+                if (entries.get(key) == entry && delete(key)) {
+                    entries.remove(key);
+                    size -= entry.length;
+                }
+            }
+        }
+        return values;
+    }
+
+
+    /**
+     * Adds a tile to the cache.
+     * <p>Tiles larger than the maximum cache size are ignored.</p>
+     *
+     * @param key    The tile key.
+     * @param values The raw values of the tile.
+     */
+    @Override
+    public void put(Key key, byte[] values) {
+        if (values.length > maxSize) {
+            return;
+        }
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, "tile", TEMP_EXTENSION);
+            Files.write(temp, values);
+            synchronized (this) {
+                Files.move(temp, directory.resolve(getFileName(key)), REPLACE_EXISTING, ATOMIC_MOVE);
+                Entry previous = entries.put(key, new Entry(values.length));
+                if (previous != null) {
+                    size -= previous.length;
+                }
+                size += values.length;
+                evict();
+            }
+        } catch (IOException e) {
+            Logger.getLogger(getClass().getName()).log(WARNING, "Could not write cached tile: " + key, e);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ex) {
+                    Logger.getLogger(getClass().getName()).log(WARNING, "Could not delete temporary tile: " + temp, ex);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Removes all tiles from the cache.
+     */
+    @Override
+    public synchronized void clear() {
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> entry = it.next();
+            if (delete(entry.getKey())) {
+                size -= entry.getValue().length;
+                it.remove();
+            }
+        }
+    }
+
+
+    /**
+     * Returns the current size of the cache, in bytes.
+     *
+     * @return See above.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+
+    /**
+     * Returns the maximum size of the cache, in bytes.
+     *
+     * @return See above.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+
+    @Override
+    public String toString() {
+        return "MappedTileCache{" +
+               "directory=" + directory +
+               ", maxSize=" + maxSize +
+               "}";
+    }
+
+
+    /**
+     * Cached tile. Each write creates a new entry, so that an entry replaced concurrently can be told apart.
+     */
+    private static final class Entry {
+
+        /** Size of the tile file, in bytes */
+        private final long length;
+
+
+        /**
+         * Constructor of the Entry class.
+         *
+         * @param length The size of the tile file, in bytes.
+         */
+        Entry(long length) {
+            this.length = length;
+        }
+
+    }
+
+}
@@ -27,8 +27,10 @@ import omero.gateway.model.PixelsData;
 import omero.model.Length;
 import omero.model.Time;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 
 /**
@@ -233,6 +235,36 @@ public interface Pixels extends RemoteObject {
     throws AccessException, ExecutionException;
 
 
+    /**
+     * Returns an array containing the value for each voxel corresponding to the bounds, retrieving the planes
+     * concurrently.
+     * <p>Planes are fetched through a pool of raw pixels stores (one per thread) and assembled in order, so the result
+     * is the same as {@link #getAllPixels(ConnectionHandler, int[], int[], int[], int[], int[])}.</p>
+     *
+     * @param conn    The connection handler.
+     * @param xBounds Array containing the X bounds from which the pixels should be retrieved.
+     * @param yBounds Array containing the Y bounds from which the pixels should be retrieved.
+     * @param cBounds Array containing the C bounds from which the pixels should be retrieved.
+     * @param zBounds Array containing the Z bounds from which the pixels should be retrieved.
+     * @param tBounds Array containing the T bounds from which the pixels should be retrieved.
+     * @param threads The number of planes retrieved concurrently.
+     *
+     * @return Array containing the value for each voxel of the image.
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    If an error occurs while retrieving the plane data from the pixels source.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    double[][][][][] getAllPixels(ConnectionHandler conn,
+                                  int[] xBounds,
+                                  int[] yBounds,
+                                  int[] cBounds,
+                                  int[] zBounds,
+                                  int[] tBounds,
+                                  int threads)
+    throws ServiceException, AccessException, ExecutionException;
+
+
     /**
      * Returns an array containing the raw values for each voxel for each planes
      *
@@ -275,4 +307,360 @@ public interface Pixels extends RemoteObject {
                               int bpp)
     throws ExecutionException, AccessException;
 
+
+    /**
+     * Returns an array containing the raw values for each voxel for each plane corresponding to the bounds, retrieving
+     * the planes concurrently.
+     * <p>Planes are fetched through a pool of raw pixels stores (one per thread) and assembled in order, so the result
+     * is the same as {@link #getRawPixels(ConnectionHandler, int[], int[], int[], int[], int[], int)}.</p>
+     *
+     * @param conn    The connection handler.
+     * @param xBounds Array containing the X bounds from which the pixels should be retrieved.
+     * @param yBounds Array containing the Y bounds from which the pixels should be retrieved.
+     * @param cBounds Array containing the C bounds from which the pixels should be retrieved.
+     * @param zBounds Array containing the Z bounds from which the pixels should be retrieved.
+     * @param tBounds Array containing the T bounds from which the pixels should be retrieved.
+     * @param bpp     Bytes per pixels of the image.
+     * @param threads The number of planes retrieved concurrently.
+     *
+     * @return a table of bytes containing the pixel values
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    If an error occurs while retrieving the plane data from the pixels source.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    byte[][][][] getRawPixels(ConnectionHandler conn,
+                              int[] xBounds,
+                              int[] yBounds,
+                              int[] cBounds,
+                              int[] zBounds,
+                              int[] tBounds,
+                              int bpp,
+                              int threads)
+    throws ServiceException, AccessException, ExecutionException;
+
+
+    /**
+     * Returns a buffer wrapping the raw values of a plane, in the native pixel type (big-endian).
+     * <p>No conversion is performed: typed views can be obtained through {@link ByteBuffer#asShortBuffer()},
+     * {@link ByteBuffer#asFloatBuffer()}, etc.</p>
+     *
+     * @param conn The connection handler.
+     * @param c    The channel index.
+     * @param z    The Z index.
+     * @param t    The T index.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    ByteBuffer getPlaneBuffer(ConnectionHandler conn, int c, int z, int t)
+    throws ServiceException, AccessException;
+
+
+    /**
+     * Returns the values of a plane as bytes, without conversion.
+     * <p>The pixel type has to be stored on 8 bits.</p>
+     *
+     * @param conn The connection handler.
+     * @param c    The channel index.
+     * @param z    The Z index.
+     * @param t    The T index.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException      Cannot connect to OMERO.
+     * @throws AccessException       Cannot access data.
+     * @throws IllegalStateException If the pixel type does not match.
+     */
+    byte[] getPlaneAsBytes(ConnectionHandler conn, int c, int z, int t)
+    throws ServiceException, AccessException;
+
+
+    /**
+     * Returns the values of a plane as shorts, without conversion.
+     * <p>The pixel type has to be stored on 16 bits.</p>
+     *
+     * @param conn The connection handler.
+     * @param c    The channel index.
+     * @param z    The Z index.
+     * @param t    The T index.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException      Cannot connect to OMERO.
+     * @throws AccessException       Cannot access data.
+     * @throws IllegalStateException If the pixel type does not match.
+     */
+    short[] getPlaneAsShorts(ConnectionHandler conn, int c, int z, int t)
+    throws ServiceException, AccessException;
+
+
+    /**
+     * Returns the values of a plane as ints, without conversion.
+     * <p>The pixel type has to be an integer type stored on 32 bits.</p>
+     *
+     * @param conn The connection handler.
+     * @param c    The channel index.
+     * @param z    The Z index.
+     * @param t    The T index.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException      Cannot connect to OMERO.
+     * @throws AccessException       Cannot access data.
+     * @throws IllegalStateException If the pixel type does not match.
+     */
+    int[] getPlaneAsInts(ConnectionHandler conn, int c, int z, int t)
+    throws ServiceException, AccessException;
+
+
+    /**
+     * Returns the values of a plane as floats, without conversion.
+     * <p>The pixel type has to be float.</p>
+     *
+     * @param conn The connection handler.
+     * @param c    The channel index.
+     * @param z    The Z index.
+     * @param t    The T index.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException      Cannot connect to OMERO.
+     * @throws AccessException       Cannot access data.
+     * @throws IllegalStateException If the pixel type does not match.
+     */
+    float[] getPlaneAsFloats(ConnectionHandler conn, int c, int z, int t)
+    throws ServiceException, AccessException;
+
+
+    /**
+     * Returns the values of a plane as doubles, without conversion.
+     * <p>The pixel type has to be double.</p>
+     *
+     * @param conn The connection handler.
+     * @param c    The channel index.
+     * @param z    The Z index.
+     * @param t    The T index.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException      Cannot connect to OMERO.
+     * @throws AccessException       Cannot access data.
+     * @throws IllegalStateException If the pixel type does not match.
+     */
+    double[] getPlaneAsDoubles(ConnectionHandler conn, int c, int z, int t)
+    throws ServiceException, AccessException;
+
+
+    /**
+     * Returns a cursor over the raw values of each plane corresponding to the bounds.
+     * <p>Planes are retrieved lazily, in T, Z, C order, with at most {@code prefetch} planes read in advance, so that
+     * only a few planes are held in memory at once.</p>
+     * <p>The cursor has to be closed once done.</p>
+     *
+     * @param conn     The connection handler.
+     * @param xBounds  Array containing the X bounds from which the pixels should be retrieved.
+     * @param yBounds  Array containing the Y bounds from which the pixels should be retrieved.
+     * @param cBounds  Array containing the C bounds from which the pixels should be retrieved.
+     * @param zBounds  Array containing the Z bounds from which the pixels should be retrieved.
+     * @param tBounds  Array containing the T bounds from which the pixels should be retrieved.
+     * @param bpp      Bytes per pixels of the image.
+     * @param prefetch The number of planes retrieved in advance.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    RawPlaneCursor getRawPlanes(ConnectionHandler conn,
+                                int[] xBounds,
+                                int[] yBounds,
+                                int[] cBounds,
+                                int[] zBounds,
+                                int[] tBounds,
+                                int bpp,
+                                int prefetch)
+    throws ServiceException, AccessException;
+
+
+    /**
+     * Retrieves the raw values of each plane corresponding to the bounds and passes them to the consumer, one at a
+     * time.
+     * <p>Planes are retrieved lazily, in T, Z, C order, with at most {@code prefetch} planes read in advance.</p>
+     *
+     * @param conn     The connection handler.
+     * @param xBounds  Array containing the X bounds from which the pixels should be retrieved.
+     * @param yBounds  Array containing the Y bounds from which the pixels should be retrieved.
+     * @param cBounds  Array containing the C bounds from which the pixels should be retrieved.
+     * @param zBounds  Array containing the Z bounds from which the pixels should be retrieved.
+     * @param tBounds  Array containing the T bounds from which the pixels should be retrieved.
+     * @param bpp      Bytes per pixels of the image.
+     * @param prefetch The number of planes retrieved in advance.
+     * @param consumer The action performed on each plane.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    default void forEachRawPlane(ConnectionHandler conn,
+                                 int[] xBounds,
+                                 int[] yBounds,
+                                 int[] cBounds,
+                                 int[] zBounds,
+                                 int[] tBounds,
+                                 int bpp,
+                                 int prefetch,
+                                 Consumer<? super RawPlane> consumer)
+    throws ServiceException, AccessException {
+        try (RawPlaneCursor cursor = getRawPlanes(conn, xBounds, yBounds, cBounds, zBounds, tBounds, bpp, prefetch)) {
+            while (cursor.hasNext()) {
+                consumer.accept(cursor.next());
+            }
+        }
+    }
+
+
+    /**
+     * Retrieves the raw values of each plane and passes them to the consumer, one at a time.
+     * <p>Planes are retrieved lazily, in T, Z, C order, with at most {@code prefetch} planes read in advance.</p>
+     *
+     * @param conn     The connection handler.
+     * @param bpp      Bytes per pixels of the image.
+     * @param prefetch The number of planes retrieved in advance.
+     * @param consumer The action performed on each plane.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    default void forEachRawPlane(ConnectionHandler conn, int bpp, int prefetch, Consumer<? super RawPlane> consumer)
+    throws ServiceException, AccessException {
+        forEachRawPlane(conn, null, null, null, null, null, bpp, prefetch, consumer);
+    }
+
+
+    /**
+     * Enables read-ahead when planes are accessed sequentially along Z or T: the next planes along the same axis are
+     * then retrieved in the background.
+     *
+     * @param planes The number of planes to prefetch for each region (0 to disable read-ahead).
+     */
+    void setReadAhead(int planes);
+
+
+    /**
+     * Returns the number of planes prefetched for each region when planes are accessed sequentially (0 if read-ahead
+     * is disabled).
+     *
+     * @return See above.
+     */
+    int getReadAhead();
+
+
+    /**
+     * Retrieves the size (width, height) of each resolution level, from the full resolution (level 0) to the lowest
+     * one.
+     * <p>Images without a pyramid have a single level.</p>
+     *
+     * @param conn The connection handler.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    List<int[]> getResolutionLevels(ConnectionHandler conn)
+    throws ServiceException, AccessException;
+
+
+    /**
+     * Returns the resolution level corresponding to a downsampling factor: the lowest resolution whose downsampling
+     * factor (on the X axis) does not exceed the requested one.
+     *
+     * @param conn   The connection handler.
+     * @param factor The downsampling factor (e.g. 4 for a quarter of the full resolution width).
+     *
+     * @return See above.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    default int getResolutionLevel(ConnectionHandler conn, double factor)
+    throws ServiceException, AccessException {
+        List<int[]> levels = getResolutionLevels(conn);
+
+        int fullSizeX = levels.get(0)[0];
+        int level     = 0;
+        for (int i = 1; i < levels.size(); i++) {
+            if ((double) fullSizeX / levels.get(i)[0] <= factor) {
+                level = i;
+            }
+        }
+        return level;
+    }
+
+
+    /**
+     * Returns a cursor over the raw values of each plane corresponding to the bounds, at the specified resolution
+     * level.
+     * <p>Planes are retrieved lazily, in T, Z, C order, with at most {@code prefetch} planes read in advance.</p>
+     * <p>The cursor has to be closed once done.</p>
+     *
+     * @param conn     The connection handler.
+     * @param level    The resolution level (0 being the full resolution).
+     * @param xBounds  Array containing the X bounds (at this level) from which the pixels should be retrieved.
+     * @param yBounds  Array containing the Y bounds (at this level) from which the pixels should be retrieved.
+     * @param cBounds  Array containing the C bounds from which the pixels should be retrieved.
+     * @param zBounds  Array containing the Z bounds from which the pixels should be retrieved.
+     * @param tBounds  Array containing the T bounds from which the pixels should be retrieved.
+     * @param bpp      Bytes per pixels of the image.
+     * @param prefetch The number of planes retrieved in advance.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException          Cannot connect to OMERO.
+     * @throws AccessException           Cannot access data.
+     * @throws IndexOutOfBoundsException If the resolution level does not exist.
+     */
+    RawPlaneCursor getRawPlanesAtLevel(ConnectionHandler conn,
+                                       int level,
+                                       int[] xBounds,
+                                       int[] yBounds,
+                                       int[] cBounds,
+                                       int[] zBounds,
+                                       int[] tBounds,
+                                       int bpp,
+                                       int prefetch)
+    throws ServiceException, AccessException;
+
+
+    /**
+     * Returns an array containing the raw values for each voxel for each plane corresponding to the bounds, at the
+     * specified resolution level.
+     *
+     * @param conn    The connection handler.
+     * @param level   The resolution level (0 being the full resolution).
+     * @param xBounds Array containing the X bounds (at this level) from which the pixels should be retrieved.
+     * @param yBounds Array containing the Y bounds (at this level) from which the pixels should be retrieved.
+     * @param cBounds Array containing the C bounds from which the pixels should be retrieved.
+     * @param zBounds Array containing the Z bounds from which the pixels should be retrieved.
+     * @param tBounds Array containing the T bounds from which the pixels should be retrieved.
+     * @param bpp     Bytes per pixels of the image.
+     *
+     * @return a table of bytes containing the pixel values
+     *
+     * @throws ServiceException          Cannot connect to OMERO.
+     * @throws AccessException           Cannot access data.
+     * @throws IndexOutOfBoundsException If the resolution level does not exist.
+     */
+    byte[][][][] getRawPixelsAtLevel(ConnectionHandler conn,
+                                     int level,
+                                     int[] xBounds,
+                                     int[] yBounds,
+                                     int[] cBounds,
+                                     int[] zBounds,
+                                     int[] tBounds,
+                                     int bpp)
+    throws ServiceException, AccessException;
+
 }
@@ -19,31 +19,48 @@ package fr.igred.omero.core;
 
 
 import fr.igred.omero.ObjectWrapper;
+import fr.igred.omero.client.Batches;
 import fr.igred.omero.client.Browser;
 import fr.igred.omero.client.ConnectionHandler;
 import fr.igred.omero.exception.AccessException;
-import fr.igred.omero.exception.ExceptionHandler;
+import fr.igred.omero.exception.ExceptionHandler.OMEROFunction;
 import fr.igred.omero.exception.ServiceException;
 import fr.igred.omero.util.Bounds;
 import fr.igred.omero.util.Coordinates;
+import loci.formats.FormatTools;
 import ome.units.unit.Unit;
-import omero.gateway.SecurityContext;
-import omero.gateway.exception.DataSourceException;
-import omero.gateway.facility.RawDataFacility;
+import omero.ServerError;
+import omero.api.RawPixelsStorePrx;
+import omero.api.ResolutionDescription;
 import omero.gateway.model.PixelsData;
 import omero.gateway.model.PlaneInfoData;
-import omero.gateway.rnd.Plane2D;
 import omero.model.Length;
 import omero.model.LengthI;
 import omero.model.Time;
 
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.IntToDoubleFunction;
+import java.util.logging.Logger;
 
 import static fr.igred.omero.core.PlaneInfo.getMinPosition;
 import static fr.igred.omero.exception.ExceptionHandler.call;
+import static fr.igred.omero.exception.ExceptionHandler.handleOMEROException;
+import static java.util.logging.Level.WARNING;
 import static ome.formats.model.UnitsFactory.convertLength;
 
 
@@ -53,14 +70,17 @@ import static ome.formats.model.UnitsFactory.convertLength;
  */
 public class PixelsWrapper extends ObjectWrapper<PixelsData> implements Pixels {
 
-    /** Size of tiles when retrieving pixels */
+    /** Size of tiles when retrieving pixels, if the server tile size cannot be retrieved */
     public static final int MAX_DIST = 5000;
 
     /** Planes info (needs to be loaded) */
     private List<PlaneInfo> planesInfo = new ArrayList<>(0);
 
-    /** Raw Data Facility to retrieve pixels */
-    private RawDataFacility rawDataFacility;
+    /** Tile size reported by the server */
+    private volatile int[] serverTileSize;
+
+    /** Read-ahead buffer for sequential access (null if disabled) */
+    private volatile ReadAhead readAhead;
 
 
     /**
@@ -70,51 +90,174 @@ public class PixelsWrapper extends ObjectWrapper<PixelsData> implements Pixels {
      */
     public PixelsWrapper(PixelsData pixels) {
         super(pixels);
-        rawDataFacility = null;
     }
 
 
     /**
-     * Copies the value from the plane at the corresponding position in the 2D array
+     * Copies the raw values from a tile at the corresponding position in the array
      *
-     * @param tab    2D array containing the results.
-     * @param p      Plane2D containing the voxels value.
-     * @param start  Start position of the tile.
-     * @param width  Width of the plane.
-     * @param height Height of the plane.
-     */
-    private static void copy(double[][] tab, Plane2D p, Coordinates start, int width, int height) {
-        int startX = start.getX();
-        int startY = start.getY();
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                tab[startY + y][startX + x] = p.getPixelValue(x, y);
+     * @param bytes    Array containing the results.
+     * @param tile     Array containing the tile raw values.
+     * @param start    Starting pixel coordinates.
+     * @param width    Width of the tile.
+     * @param height   Height of the tile.
+     * @param imgWidth Width of the image.
+     * @param bpp      Bytes per pixels of the image.
+     */
+    private static void copy(byte[] bytes,
+                             byte[] tile,
+                             Coordinates start,
+                             int width,
+                             int height,
+                             int imgWidth,
+                             int bpp) {
+        int x0 = start.getX();
+        int y0 = start.getY();
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(tile, y * width * bpp, bytes, ((y + y0) * imgWidth + x0) * bpp, width * bpp);
+        }
+    }
+
+
+    /**
+     * Returns a function reading the value of the voxel at the given index from a buffer, according to the pixel type.
+     *
+     * @param buffer    The buffer containing the raw values (big-endian).
+     * @param pixelType The pixel type, as defined in {@link FormatTools}.
+     *
+     * @return See above.
+     */
+    private static IntToDoubleFunction getValueReader(ByteBuffer buffer, int pixelType) {
+        IntToDoubleFunction reader;
+        switch (pixelType) {
+            case FormatTools.INT8:
+                reader = buffer::get;
+                break;
+            case FormatTools.INT16:
+                reader = i -> buffer.getShort(i * Short.BYTES);
+                break;
+            case FormatTools.UINT16:
+                reader = i -> buffer.getShort(i * Short.BYTES) & 0xFFFF;
+                break;
+            case FormatTools.INT32:
+                reader = i -> buffer.getInt(i * Integer.BYTES);
+                break;
+            case FormatTools.UINT32:
+                reader = i -> buffer.getInt(i * Integer.BYTES) & 0xFFFFFFFFL;
+                break;
+            case FormatTools.FLOAT:
+                reader = i -> buffer.getFloat(i * Float.BYTES);
+                break;
+            case FormatTools.DOUBLE:
+                reader = i -> buffer.getDouble(i * Double.BYTES);
+                break;
+            default:
+                reader = i -> buffer.get(i) & 0xFF;
+        }
+        return reader;
+    }
+
+
+    /**
+     * Converts the raw values of a tile to a 2D array of doubles.
+     *
+     * @param bytes     The raw values (big-endian).
+     * @param width     Width of the tile.
+     * @param height    Height of the tile.
+     * @param pixelType The pixel type, as defined in {@link FormatTools}.
+     *
+     * @return See above.
+     */
+    private static double[][] toDoubles(byte[] bytes, int width, int height, int pixelType) {
+        IntToDoubleFunction reader = getValueReader(ByteBuffer.wrap(bytes), pixelType);
+        double[][]          tile   = new double[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                tile[y][x] = reader.applyAsDouble(y * width + x);
             }
         }
+        return tile;
     }
 
 
     /**
-     * Copies the value from the plane at the corresponding position in the array
+     * Computes the size of the requests used to retrieve a region.
+     * <p>Requests are made of whole base tiles (the server tile size), grouped along X then Y as long as the
+     * request payload stays within the byte budget. Base tiles are shrunk if a single one exceeds the budget.</p>
      *
-     * @param bytes    Array containing the results.
-     * @param p        Plane2D containing the voxels value.
-     * @param start    Starting pixel coordinates.
-     * @param width    Width of the plane.
-     * @param height   Height of the plane.
-     * @param imgWidth Width of the image.
+     * @param width    Width of the region.
+     * @param height   Height of the region.
      * @param bpp      Bytes per pixels of the image.
+     * @param tileSize The base tile size (width, height).
+     * @param maxBytes The maximum number of bytes per request.
+     *
+     * @return The maximum width and height of each request.
      */
-    private static void copy(byte[] bytes, Plane2D p, Coordinates start, int width, int height, int imgWidth, int bpp) {
-        int x0 = start.getX();
-        int y0 = start.getY();
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                for (int i = 0; i < bpp; i++) {
-                    bytes[((y + y0) * imgWidth + x + x0) * bpp + i] = p.getRawValue((x + y * width) * bpp + i);
+    static int[] computeChunkSize(int width, int height, int bpp, int[] tileSize, long maxBytes) {
+        long maxPixels = Math.max(1L, maxBytes / Math.max(1, bpp));
+
+        int tileX = Math.max(1, Math.min(width, tileSize[0]));
+        int tileY = Math.max(1, Math.min(height, tileSize[1]));
+        if ((long) tileX * tileY > maxPixels) {
+            tileX = (int) Math.min(tileX, maxPixels);
+            tileY = (int) Math.max(1L, maxPixels / tileX);
+        }
+
+        long nX     = Math.min((width + tileX - 1L) / tileX, maxPixels / ((long) tileX * tileY));
+        int  chunkX = (int) Math.min(width, Math.max(1L, nX) * tileX);
+        long nY     = Math.min((height + tileY - 1L) / tileY, maxPixels / ((long) chunkX * tileY));
+        int  chunkY = (int) Math.min(height, Math.max(1L, nY) * tileY);
+        return new int[]{chunkX, chunkY};
+    }
+
+
+    /**
+     * Returns the positions of all the planes within the bounds, ordered by T, Z and C.
+     *
+     * @param bounds The 5D bounds.
+     *
+     * @return See above.
+     */
+    private static List<Coordinates> getPlanePositions(Bounds bounds) {
+        Coordinates start = bounds.getStart();
+        Coordinates size  = bounds.getSize();
+
+        List<Coordinates> positions = new ArrayList<>(size.getT() * size.getZ() * size.getC());
+        for (int t = 0, posT = start.getT(); t < size.getT(); t++, posT++) {
+            for (int z = 0, posZ = start.getZ(); z < size.getZ(); z++, posZ++) {
+                for (int c = 0, posC = start.getC(); c < size.getC(); c++, posC++) {
+                    positions.add(new Coordinates(start.getX(), start.getY(), posC, posZ, posT));
                 }
             }
         }
+        return positions;
+    }
+
+
+    /**
+     * Waits for a task to complete and returns its result, converting any OMERO exception.
+     *
+     * @param future  The task result.
+     * @param message The message, if an exception is thrown.
+     * @param <T>     The type of the result.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    static <T> T getResult(Future<T> future, String message)
+    throws ServiceException, AccessException {
+        T result = null;
+        try {
+            result = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccessException(message, e);
+        } catch (ExecutionException e) {
+            handleOMEROException(e, message);
+        }
+        return result;
     }
 
 
@@ -378,32 +521,47 @@ public class PixelsWrapper extends ObjectWrapper<PixelsData> implements Pixels {
 
 
     /**
-     * Creates a {@link omero.gateway.facility.RawDataFacility} to retrieve the pixel values.
+     * Retrieves the tile size reported by the server for these pixels (only once it was successfully retrieved).
+     * <p>If it cannot be retrieved, tiles of {@link #MAX_DIST} by {@link #MAX_DIST} pixels are used for this
+     * request, and the server is queried again on the next one.</p>
      *
      * @param conn The connection handler.
      *
-     * @return <ul><li>True if a new RawDataFacility was created</li>
-     * <li>False otherwise</li></ul>
-     *
-     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     * @return See above.
      */
-    boolean createRawDataFacility(ConnectionHandler conn) throws ExecutionException {
-        boolean created = false;
-        if (rawDataFacility == null) {
-            rawDataFacility = conn.getGateway()
-                                  .getFacility(RawDataFacility.class);
-            created = true;
+    private int[] getServerTileSize(ConnectionHandler conn) {
+        int[] tileSize = serverTileSize;
+        if (tileSize == null) {
+            try {
+                tileSize = withStore(conn, RawPixelsStorePrx::getTileSize, "Cannot retrieve tile size for " + this);
+            } catch (ServiceException | AccessException e) {
+                Logger.getLogger(getClass().getName())
+                      .log(WARNING, "Could not retrieve tile size, using default", e);
+                return new int[]{MAX_DIST, MAX_DIST};
+            }
+            serverTileSize = tileSize;
         }
-        return created;
+        return tileSize;
     }
 
 
     /**
-     * Destroy the {@link omero.gateway.facility.RawDataFacility}.
+     * Computes the size of the requests used to retrieve a region, from the client tile size (or the server one if
+     * none was set) and the client maximum number of bytes per request.
+     *
+     * @param conn   The connection handler.
+     * @param width  Width of the region.
+     * @param height Height of the region.
+     * @param bpp    Bytes per pixels of the image.
+     *
+     * @return The maximum width and height of each request.
      */
-    void destroyRawDataFacility() {
-        rawDataFacility.close();
-        rawDataFacility = null;
+    private int[] getChunkSize(ConnectionHandler conn, int width, int height, int bpp) {
+        int[] tileSize = conn.getTileSize();
+        if (tileSize == null) {
+            tileSize = getServerTileSize(conn);
+        }
+        return computeChunkSize(width, height, bpp, tileSize, conn.getMaxTileBytes());
     }
 
 
@@ -430,8 +588,7 @@ public class PixelsWrapper extends ObjectWrapper<PixelsData> implements Pixels {
                                          int[] zBounds,
                                          int[] tBounds)
     throws AccessException, ExecutionException {
-        boolean rdf = createRawDataFacility(conn);
-        Bounds  lim = getBounds(xBounds, yBounds, cBounds, zBounds, tBounds);
+        Bounds lim = getBounds(xBounds, yBounds, cBounds, zBounds, tBounds);
 
         Coordinates start = lim.getStart();
         Coordinates size  = lim.getSize();
@@ -458,10 +615,6 @@ public class PixelsWrapper extends ObjectWrapper<PixelsData> implements Pixels {
                 }
             }
         }
-
-        if (rdf) {
-            destroyRawDataFacility();
-        }
         return tab;
     }
 
@@ -476,56 +629,71 @@ public class PixelsWrapper extends ObjectWrapper<PixelsData> implements Pixels {
      *
      * @return 2D array containing tile pixel values (as double).
      *
-     * @throws AccessException    If an error occurs while retrieving the plane data from the pixels source.
-     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     * @throws AccessException If an error occurs while retrieving the plane data from the pixels source.
      */
     double[][] getTile(ConnectionHandler conn, Coordinates start, int width, int height)
-    throws AccessException, ExecutionException {
-        boolean rdf = createRawDataFacility(conn);
-        double[][] tile = ExceptionHandler.of(this,
-                                              t -> t.getTileUnchecked(conn.getCtx(), start, width, height))
-                                          .rethrow(DataSourceException.class,
-                                                   AccessException::new,
-                                                   "Cannot read tile")
-                                          .get();
-        if (rdf) {
-            destroyRawDataFacility();
-        }
-        return tile;
+    throws AccessException {
+        int pixelType = FormatTools.pixelTypeFromString(getPixelType());
+        int bpp       = FormatTools.getBytesPerPixel(pixelType);
+        return toDoubles(getRawTile(conn, start, width, height, bpp), width, height, pixelType);
     }
 
 
     /**
-     * Gets the tile at the specified position, with the defined width and height.
-     * <p>The {@link #rawDataFacility} has to be created first.</p>
+     * Returns an array containing the value for each voxel corresponding to the bounds, retrieving the planes
+     * concurrently.
+     * <p>Planes are fetched through a pool of raw pixels stores (one per thread) and assembled in order, so the result
+     * is the same as {@link #getAllPixels(ConnectionHandler, int[], int[], int[], int[], int[])}.</p>
      *
-     * @param ctx    The {@link SecurityContext}.
-     * @param start  Start position of the tile.
-     * @param width  Width of the tile.
-     * @param height Height of the tile.
+     * @param conn    The connection handler.
+     * @param xBounds Array containing the X bounds from which the pixels should be retrieved.
+     * @param yBounds Array containing the Y bounds from which the pixels should be retrieved.
+     * @param cBounds Array containing the C bounds from which the pixels should be retrieved.
+     * @param zBounds Array containing the Z bounds from which the pixels should be retrieved.
+     * @param tBounds Array containing the T bounds from which the pixels should be retrieved.
+     * @param threads The number of planes retrieved concurrently.
      *
-     * @return 2D array containing tile pixel values (as double).
+     * @return Array containing the value for each voxel of the image.
      *
-     * @throws DataSourceException If an error occurs while retrieving the plane data from the pixels source.
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    If an error occurs while retrieving the plane data from the pixels source.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
      */
-    private double[][] getTileUnchecked(SecurityContext ctx, Coordinates start, int width, int height)
-    throws DataSourceException {
-        double[][] tile = new double[height][width];
+    @Override
+    public double[][][][][] getAllPixels(ConnectionHandler conn,
+                                         int[] xBounds,
+                                         int[] yBounds,
+                                         int[] cBounds,
+                                         int[] zBounds,
+                                         int[] tBounds,
+                                         int threads)
+    throws ServiceException, AccessException, ExecutionException {
+        if (threads <= 1) {
+            return getAllPixels(conn, xBounds, yBounds, cBounds, zBounds, tBounds);
+        }
+        Bounds      lim  = getBounds(xBounds, yBounds, cBounds, zBounds, tBounds);
+        Coordinates size = lim.getSize();
 
-        int c = start.getC();
-        int z = start.getZ();
-        int t = start.getT();
+        int sx        = size.getX();
+        int sy        = size.getY();
+        int pixelType = FormatTools.pixelTypeFromString(getPixelType());
+        int bpp       = FormatTools.getBytesPerPixel(pixelType);
 
-        for (int relX = 0, x = start.getX(); relX < width; relX += MAX_DIST, x += MAX_DIST) {
-            int sizeX = Math.min(MAX_DIST, width - relX);
-            for (int relY = 0, y = start.getY(); relY < height; relY += MAX_DIST, y += MAX_DIST) {
-                int         sizeY = Math.min(MAX_DIST, height - relY);
-                Plane2D     p     = rawDataFacility.getTile(ctx, data, z, t, c, x, y, sizeX, sizeY);
-                Coordinates pos   = new Coordinates(relX, relY, c, z, t);
-                copy(tile, p, pos, sizeX, sizeY);
+        Function<byte[], double[][]> mapper = bytes -> toDoubles(bytes, sx, sy, pixelType);
+
+        List<double[][]> planes = getTiles(conn, getPlanePositions(lim), sx, sy, bpp, threads, mapper);
+
+        double[][][][][] tab = new double[size.getT()][size.getZ()][size.getC()][][];
+
+        Iterator<double[][]> it = planes.iterator();
+        for (int t = 0; t < size.getT(); t++) {
+            for (int z = 0; z < size.getZ(); z++) {
+                for (int c = 0; c < size.getC(); c++) {
+                    tab[t][z][c] = it.next();
+                }
             }
         }
-        return tile;
+        return tab;
     }
 
 
@@ -554,8 +722,7 @@ public class PixelsWrapper extends ObjectWrapper<PixelsData> implements Pixels {
                                      int[] tBounds,
                                      int bpp)
     throws ExecutionException, AccessException {
-        boolean rdf = createRawDataFacility(conn);
-        Bounds  lim = getBounds(xBounds, yBounds, cBounds, zBounds, tBounds);
+        Bounds lim = getBounds(xBounds, yBounds, cBounds, zBounds, tBounds);
 
         Coordinates start = lim.getStart();
         Coordinates size  = lim.getSize();
@@ -582,15 +749,13 @@ public class PixelsWrapper extends ObjectWrapper<PixelsData> implements Pixels {
                 }
             }
         }
-        if (rdf) {
-            destroyRawDataFacility();
-        }
         return bytes;
     }
 
 
     /**
      * Gets the tile at the specified position, with the defined width and height.
+     * <p>The tile is read from the local cache if possible, or from the read-ahead buffer if it was prefetched.</p>
      *
      * @param conn   The connection handler.
      * @param start  Start position of the tile.
@@ -600,30 +765,33 @@ public class PixelsWrapper extends ObjectWrapper<PixelsData> implements Pixels {
      *
      * @return Array of bytes containing the pixel values.
      *
-     * @throws AccessException    If an error occurs while retrieving the plane data from the pixels source.
-     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     * @throws AccessException If an error occurs while retrieving the plane data from the pixels source.
      */
     byte[] getRawTile(ConnectionHandler conn, Coordinates start, int width, int height, int bpp)
-    throws AccessException, ExecutionException {
-        boolean rdf = createRawDataFacility(conn);
-        byte[] tile = ExceptionHandler.of(this,
-                                          t -> t.getRawTileUnchecked(conn.getCtx(), start, width, height, bpp))
-                                      .rethrow(DataSourceException.class,
-                                               AccessException::new,
-                                               "Cannot read raw tile")
-                                      .get();
-        if (rdf) {
-            destroyRawDataFacility();
+    throws AccessException {
+        TileCache     cache = conn.getTileCache();
+        TileCache.Key key   = new TileCache.Key(getId(), start, width, height);
+
+        byte[] tile = cache != null ? cache.get(key) : null;
+        if (tile == null) {
+            ReadAhead prefetcher = readAhead;
+            if (prefetcher != null) {
+                tile = prefetcher.read(key, pos -> loadRawTile(conn, pos, width, height, bpp));
+            } else {
+                tile = loadRawTile(conn, start, width, height, bpp);
+            }
+            if (cache != null) {
+                cache.put(key, tile);
+            }
         }
         return tile;
     }
 
 
     /**
-     * Gets the tile at the specified position, with the defined width and height.
-     * <p>The {@link #rawDataFacility} has to be created first.</p>
+     * Retrieves the tile at the specified position from OMERO, with the defined width and height.
      *
-     * @param ctx    The {@link SecurityContext}.
+     * @param conn   The connection handler.
      * @param start  Start position of the tile.
      * @param width  Width of the tile.
      * @param height Height of the tile.
@@ -631,23 +799,690 @@ public class PixelsWrapper extends ObjectWrapper<PixelsData> implements Pixels {
      *
      * @return Array of bytes containing the pixel values.
      *
-     * @throws DataSourceException If an error occurs while retrieving the plane data from the pixels source.
+     * @throws AccessException If an error occurs while retrieving the plane data from the pixels source.
      */
-    private byte[] getRawTileUnchecked(SecurityContext ctx, Coordinates start, int width, int height, int bpp)
-    throws DataSourceException {
-        byte[] tile = new byte[height * width * bpp];
+    private byte[] loadRawTile(ConnectionHandler conn, Coordinates start, int width, int height, int bpp)
+    throws AccessException {
+        String error = "Cannot read raw tile " + start + " for " + this;
+        int[]  chunk = getChunkSize(conn, width, height, bpp);
+        try {
+            return withStore(conn, s -> readTile(s, start, width, height, bpp, chunk), error);
+        } catch (ServiceException e) {
+            throw new AccessException(error, e);
+        }
+    }
+
+
+    /**
+     * Enables read-ahead when planes are accessed sequentially along Z or T.
+     * <p>Once two consecutive planes along Z or T have been requested for the same region (channel, X, Y, width and
+     * height), the next planes along this axis are retrieved in the background and kept until requested.</p>
+     * <p>This applies to planes retrieved one at a time, through
+     * {@link #getRawPixels(ConnectionHandler, int[], int[], int[], int[], int[], int)},
+     * {@link #getAllPixels(ConnectionHandler, int[], int[], int[], int[], int[])} or
+     * {@link #getPlaneBuffer(ConnectionHandler, int, int, int)} (and the typed plane accessors).</p>
+     *
+     * @param planes The number of planes to prefetch for each region (0 to disable read-ahead).
+     */
+    @Override
+    public void setReadAhead(int planes) {
+        ReadAhead previous;
+        synchronized (this) {
+            previous  = readAhead;
+            readAhead = planes > 0 ? new ReadAhead(planes, getSizeC(), getSizeZ(), getSizeT()) : null;
+        }
+        if (previous != null) {
+            previous.shutdown();
+        }
+    }
+
+
+    /**
+     * Returns the number of planes prefetched for each region when planes are accessed sequentially (0 if read-ahead
+     * is disabled).
+     *
+     * @return See above.
+     */
+    @Override
+    public int getReadAhead() {
+        ReadAhead prefetcher = readAhead;
+        return prefetcher != null ? prefetcher.getDepth() : 0;
+    }
+
+
+    /**
+     * Returns an array containing the raw values for each voxel for each plane corresponding to the bounds, retrieving
+     * the planes concurrently.
+     * <p>Planes are fetched through a pool of raw pixels stores (one per thread) and assembled in order, so the result
+     * is the same as {@link #getRawPixels(ConnectionHandler, int[], int[], int[], int[], int[], int)}.</p>
+     *
+     * @param conn    The connection handler.
+     * @param xBounds Array containing the X bounds from which the pixels should be retrieved.
+     * @param yBounds Array containing the Y bounds from which the pixels should be retrieved.
+     * @param cBounds Array containing the C bounds from which the pixels should be retrieved.
+     * @param zBounds Array containing the Z bounds from which the pixels should be retrieved.
+     * @param tBounds Array containing the T bounds from which the pixels should be retrieved.
+     * @param bpp     Bytes per pixels of the image.
+     * @param threads The number of planes retrieved concurrently.
+     *
+     * @return a table of bytes containing the pixel values
+     *
+     * @throws ServiceException   Cannot connect to OMERO.
+     * @throws AccessException    If an error occurs while retrieving the plane data from the pixels source.
+     * @throws ExecutionException A Facility can't be retrieved or instantiated.
+     */
+    @Override
+    public byte[][][][] getRawPixels(ConnectionHandler conn,
+                                     int[] xBounds,
+                                     int[] yBounds,
+                                     int[] cBounds,
+                                     int[] zBounds,
+                                     int[] tBounds,
+                                     int bpp,
+                                     int threads)
+    throws ServiceException, AccessException, ExecutionException {
+        if (threads <= 1) {
+            return getRawPixels(conn, xBounds, yBounds, cBounds, zBounds, tBounds, bpp);
+        }
+        Bounds      lim  = getBounds(xBounds, yBounds, cBounds, zBounds, tBounds);
+        Coordinates size = lim.getSize();
+
+        List<byte[]> planes = getTiles(conn,
+                                       getPlanePositions(lim),
+                                       size.getX(),
+                                       size.getY(),
+                                       bpp,
+                                       threads,
+                                       Function.identity());
+
+        byte[][][][] bytes = new byte[size.getT()][size.getZ()][size.getC()][];
+
+        Iterator<byte[]> it = planes.iterator();
+        for (int t = 0; t < size.getT(); t++) {
+            for (int z = 0; z < size.getZ(); z++) {
+                for (int c = 0; c < size.getC(); c++) {
+                    bytes[t][z][c] = it.next();
+                }
+            }
+        }
+        return bytes;
+    }
+
+
+    /**
+     * Returns a buffer wrapping the raw values of a plane, in the native pixel type (big-endian).
+     * <p>No conversion is performed: typed views can be obtained through {@link ByteBuffer#asShortBuffer()},
+     * {@link ByteBuffer#asFloatBuffer()}, etc.</p>
+     *
+     * @param conn The connection handler.
+     * @param c    The channel index.
+     * @param z    The Z index.
+     * @param t    The T index.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    @Override
+    public ByteBuffer getPlaneBuffer(ConnectionHandler conn, int c, int z, int t)
+    throws ServiceException, AccessException {
+        int         bpp    = FormatTools.getBytesPerPixel(FormatTools.pixelTypeFromString(getPixelType()));
+        int         width  = getSizeX();
+        int         height = getSizeY();
+        Coordinates pos    = new Coordinates(0, 0, c, z, t);
+        return ByteBuffer.wrap(getRawTile(conn, pos, width, height, bpp));
+    }
+
+
+    /**
+     * Returns the values of a plane as bytes, without conversion.
+     * <p>The pixel type has to be stored on 8 bits.</p>
+     *
+     * @param conn The connection handler.
+     * @param c    The channel index.
+     * @param z    The Z index.
+     * @param t    The T index.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException      Cannot connect to OMERO.
+     * @throws AccessException       Cannot access data.
+     * @throws IllegalStateException If the pixel type does not match.
+     */
+    @Override
+    public byte[] getPlaneAsBytes(ConnectionHandler conn, int c, int z, int t)
+    throws ServiceException, AccessException {
+        checkPixelSize(Byte.BYTES);
+        return getPlaneBuffer(conn, c, z, t).array();
+    }
+
+
+    /**
+     * Returns the values of a plane as shorts, without conversion.
+     * <p>The pixel type has to be stored on 16 bits.</p>
+     *
+     * @param conn The connection handler.
+     * @param c    The channel index.
+     * @param z    The Z index.
+     * @param t    The T index.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException      Cannot connect to OMERO.
+     * @throws AccessException       Cannot access data.
+     * @throws IllegalStateException If the pixel type does not match.
+     */
+    @Override
+    public short[] getPlaneAsShorts(ConnectionHandler conn, int c, int z, int t)
+    throws ServiceException, AccessException {
+        checkPixelSize(Short.BYTES);
+        ShortBuffer buffer = getPlaneBuffer(conn, c, z, t).asShortBuffer();
+        short[]     values = new short[buffer.remaining()];
+        buffer.get(values);
+        return values;
+    }
+
+
+    /**
+     * Returns the values of a plane as ints, without conversion.
+     * <p>The pixel type has to be an integer type stored on 32 bits.</p>
+     *
+     * @param conn The connection handler.
+     * @param c    The channel index.
+     * @param z    The Z index.
+     * @param t    The T index.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException      Cannot connect to OMERO.
+     * @throws AccessException       Cannot access data.
+     * @throws IllegalStateException If the pixel type does not match.
+     */
+    @Override
+    public int[] getPlaneAsInts(ConnectionHandler conn, int c, int z, int t)
+    throws ServiceException, AccessException {
+        checkPixelSize(Integer.BYTES);
+        IntBuffer buffer = getPlaneBuffer(conn, c, z, t).asIntBuffer();
+        int[]     values = new int[buffer.remaining()];
+        buffer.get(values);
+        return values;
+    }
+
+
+    /**
+     * Returns the values of a plane as floats, without conversion.
+     * <p>The pixel type has to be float.</p>
+     *
+     * @param conn The connection handler.
+     * @param c    The channel index.
+     * @param z    The Z index.
+     * @param t    The T index.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException      Cannot connect to OMERO.
+     * @throws AccessException       Cannot access data.
+     * @throws IllegalStateException If the pixel type does not match.
+     */
+    @Override
+    public float[] getPlaneAsFloats(ConnectionHandler conn, int c, int z, int t)
+    throws ServiceException, AccessException {
+        checkPixelType(FormatTools.FLOAT);
+        FloatBuffer buffer = getPlaneBuffer(conn, c, z, t).asFloatBuffer();
+        float[]     values = new float[buffer.remaining()];
+        buffer.get(values);
+        return values;
+    }
+
+
+    /**
+     * Returns the values of a plane as doubles, without conversion.
+     * <p>The pixel type has to be double.</p>
+     *
+     * @param conn The connection handler.
+     * @param c    The channel index.
+     * @param z    The Z index.
+     * @param t    The T index.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException      Cannot connect to OMERO.
+     * @throws AccessException       Cannot access data.
+     * @throws IllegalStateException If the pixel type does not match.
+     */
+    @Override
+    public double[] getPlaneAsDoubles(ConnectionHandler conn, int c, int z, int t)
+    throws ServiceException, AccessException {
+        checkPixelType(FormatTools.DOUBLE);
+        DoubleBuffer buffer = getPlaneBuffer(conn, c, z, t).asDoubleBuffer();
+        double[]     values = new double[buffer.remaining()];
+        buffer.get(values);
+        return values;
+    }
+
+
+    /**
+     * Checks that the pixel type is stored on the expected number of bytes, and is not a floating point type.
+     *
+     * @param bytes The expected number of bytes.
+     *
+     * @throws IllegalStateException If the pixel type does not match.
+     */
+    private void checkPixelSize(int bytes) {
+        int pixelType = FormatTools.pixelTypeFromString(getPixelType());
+        if (FormatTools.getBytesPerPixel(pixelType) != bytes || FormatTools.isFloatingPoint(pixelType)) {
+            String msg = String.format("Pixel type is %s, not a %d-bit integer type", getPixelType(), bytes * 8);
+            throw new IllegalStateException(msg);
+        }
+    }
 
+
+    /**
+     * Checks that the pixel type is the expected one.
+     *
+     * @param expected The expected pixel type, as defined in {@link FormatTools}.
+     *
+     * @throws IllegalStateException If the pixel type does not match.
+     */
+    private void checkPixelType(int expected) {
+        if (FormatTools.pixelTypeFromString(getPixelType()) != expected) {
+            String type = FormatTools.getPixelTypeString(expected);
+            String msg  = String.format("Pixel type is %s, not %s", getPixelType(), type);
+            throw new IllegalStateException(msg);
+        }
+    }
+
+
+    /**
+     * Returns a cursor over the raw values of each plane corresponding to the bounds.
+     * <p>Planes are retrieved lazily, in T, Z, C order, with at most {@code prefetch} planes read in advance.</p>
+     * <p>The cursor has to be closed once done.</p>
+     *
+     * @param conn     The connection handler.
+     * @param xBounds  Array containing the X bounds from which the pixels should be retrieved.
+     * @param yBounds  Array containing the Y bounds from which the pixels should be retrieved.
+     * @param cBounds  Array containing the C bounds from which the pixels should be retrieved.
+     * @param zBounds  Array containing the Z bounds from which the pixels should be retrieved.
+     * @param tBounds  Array containing the T bounds from which the pixels should be retrieved.
+     * @param bpp      Bytes per pixels of the image.
+     * @param prefetch The number of planes retrieved in advance.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    @Override
+    public RawPlaneCursor getRawPlanes(ConnectionHandler conn,
+                                       int[] xBounds,
+                                       int[] yBounds,
+                                       int[] cBounds,
+                                       int[] zBounds,
+                                       int[] tBounds,
+                                       int bpp,
+                                       int prefetch)
+    throws ServiceException, AccessException {
+        Bounds      lim  = getBounds(xBounds, yBounds, cBounds, zBounds, tBounds);
+        Coordinates size = lim.getSize();
+
+        TileCache         cache = conn.getTileCache();
+        int[]             chunk = getChunkSize(conn, size.getX(), size.getY(), bpp);
+        RawPixelsStorePrx store = conn.getPixelsStore(getId());
+        return new RawPlaneCursor(conn,
+                                  getId(),
+                                  store,
+                                  true,
+                                  pos -> readTile(cache, store, pos, size.getX(), size.getY(), bpp, chunk),
+                                  getPlanePositions(lim),
+                                  size.getX(),
+                                  size.getY(),
+                                  bpp,
+                                  prefetch,
+                                  "Cannot read raw plane for " + this);
+    }
+
+
+    /**
+     * Retrieves the size (width, height) of each resolution level, from the full resolution (level 0) to the lowest
+     * one.
+     * <p>Images without a pyramid have a single level.</p>
+     *
+     * @param conn The connection handler.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    @Override
+    public List<int[]> getResolutionLevels(ConnectionHandler conn)
+    throws ServiceException, AccessException {
+        return withStore(conn, this::readResolutionLevels, "Cannot retrieve resolution levels for " + this);
+    }
+
+
+    /**
+     * Retrieves the size (width, height) of each resolution level from a raw pixels store, from the full resolution
+     * (level 0) to the lowest one.
+     *
+     * @param store The raw pixels store.
+     *
+     * @return See above.
+     *
+     * @throws ServerError Server error.
+     */
+    private List<int[]> readResolutionLevels(RawPixelsStorePrx store) throws ServerError {
+        List<int[]> levels = new ArrayList<>(1);
+        for (ResolutionDescription description : store.getResolutionDescriptions()) {
+            levels.add(new int[]{description.sizeX, description.sizeY});
+        }
+        levels.sort(Comparator.comparingInt((int[] size) -> size[0]).reversed());
+        if (levels.isEmpty()) {
+            levels.add(new int[]{getSizeX(), getSizeY()});
+        }
+        return levels;
+    }
+
+
+    /**
+     * Returns a cursor over the raw values of each plane corresponding to the bounds, at the specified resolution
+     * level.
+     * <p>Planes are retrieved lazily, in T, Z, C order, with at most {@code prefetch} planes read in advance.</p>
+     * <p>The cursor has to be closed once done.</p>
+     *
+     * @param conn     The connection handler.
+     * @param level    The resolution level (0 being the full resolution).
+     * @param xBounds  Array containing the X bounds (at this level) from which the pixels should be retrieved.
+     * @param yBounds  Array containing the Y bounds (at this level) from which the pixels should be retrieved.
+     * @param cBounds  Array containing the C bounds from which the pixels should be retrieved.
+     * @param zBounds  Array containing the Z bounds from which the pixels should be retrieved.
+     * @param tBounds  Array containing the T bounds from which the pixels should be retrieved.
+     * @param bpp      Bytes per pixels of the image.
+     * @param prefetch The number of planes retrieved in advance.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException          Cannot connect to OMERO.
+     * @throws AccessException           Cannot access data.
+     * @throws IndexOutOfBoundsException If the resolution level does not exist.
+     */
+    @Override
+    public RawPlaneCursor getRawPlanesAtLevel(ConnectionHandler conn,
+                                              int level,
+                                              int[] xBounds,
+                                              int[] yBounds,
+                                              int[] cBounds,
+                                              int[] zBounds,
+                                              int[] tBounds,
+                                              int bpp,
+                                              int prefetch)
+    throws ServiceException, AccessException {
+        String            error = "Cannot read raw plane at level " + level + " for " + this;
+        RawPixelsStorePrx store = conn.getPixelsStore(getId());
+        try {
+            List<int[]> levels = call(store, this::readResolutionLevels, error);
+            int[]       size   = levels.get(level);
+            if (level > 0) {
+                // Raw pixels stores number levels from the lowest resolution
+                int storeLevel = levels.size() - 1 - level;
+                call(store, s -> {
+                    s.setResolutionLevel(storeLevel);
+                    return s;
+                }, error);
+            }
+            Bounds lim = getBounds(size[0], size[1], xBounds, yBounds, cBounds, zBounds, tBounds);
+
+            int sx = lim.getSize().getX();
+            int sy = lim.getSize().getY();
+
+            // Cached tiles are identified at full resolution only
+            TileCache cache = level == 0 ? conn.getTileCache() : null;
+            int[]     chunk = getChunkSize(conn, sx, sy, bpp);
+            // Stores set to a lower resolution are not given back for reuse
+            return new RawPlaneCursor(conn,
+                                      getId(),
+                                      store,
+                                      level == 0,
+                                      pos -> readTile(cache, store, pos, sx, sy, bpp, chunk),
+                                      getPlanePositions(lim),
+                                      sx,
+                                      sy,
+                                      bpp,
+                                      prefetch,
+                                      error);
+        } catch (ServiceException | AccessException | RuntimeException e) {
+            conn.discardPixelsStore(store);
+            throw e;
+        }
+    }
+
+
+    /**
+     * Returns an array containing the raw values for each voxel for each plane corresponding to the bounds, at the
+     * specified resolution level.
+     *
+     * @param conn    The connection handler.
+     * @param level   The resolution level (0 being the full resolution).
+     * @param xBounds Array containing the X bounds (at this level) from which the pixels should be retrieved.
+     * @param yBounds Array containing the Y bounds (at this level) from which the pixels should be retrieved.
+     * @param cBounds Array containing the C bounds from which the pixels should be retrieved.
+     * @param zBounds Array containing the Z bounds from which the pixels should be retrieved.
+     * @param tBounds Array containing the T bounds from which the pixels should be retrieved.
+     * @param bpp     Bytes per pixels of the image.
+     *
+     * @return a table of bytes containing the pixel values
+     *
+     * @throws ServiceException          Cannot connect to OMERO.
+     * @throws AccessException           Cannot access data.
+     * @throws IndexOutOfBoundsException If the resolution level does not exist.
+     */
+    @Override
+    public byte[][][][] getRawPixelsAtLevel(ConnectionHandler conn,
+                                            int level,
+                                            int[] xBounds,
+                                            int[] yBounds,
+                                            int[] cBounds,
+                                            int[] zBounds,
+                                            int[] tBounds,
+                                            int bpp)
+    throws ServiceException, AccessException {
+        int[] c = checkBounds(cBounds, getSizeC());
+        int[] z = checkBounds(zBounds, getSizeZ());
+        int[] t = checkBounds(tBounds, getSizeT());
+
+        byte[][][][] bytes = new byte[t[1] - t[0] + 1][z[1] - z[0] + 1][c[1] - c[0] + 1][];
+        try (RawPlaneCursor cursor = getRawPlanesAtLevel(conn, level, xBounds, yBounds, c, z, t, bpp, 1)) {
+            while (cursor.hasNext()) {
+                RawPlane    plane = cursor.next();
+                Coordinates pos   = plane.getPosition();
+                bytes[pos.getT() - t[0]][pos.getZ() - z[0]][pos.getC() - c[0]] = plane.getValues();
+            }
+        }
+        return bytes;
+    }
+
+
+    /**
+     * Retrieves the tiles at the specified positions concurrently, on the executor shared by the connection, using one
+     * raw pixels store per thread.
+     * <p>Results are returned in the same order as the positions.</p>
+     *
+     * @param conn      The connection handler.
+     * @param positions Start positions of the tiles.
+     * @param width     Width of the tiles.
+     * @param height    Height of the tiles.
+     * @param bpp       Bytes per pixels of the image.
+     * @param threads   The number of tiles retrieved concurrently.
+     * @param mapper    The function applied to the raw tile values (within the worker thread).
+     * @param <T>       The type of the converted tiles.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    private <T> List<T> getTiles(ConnectionHandler conn,
+                                 Collection<Coordinates> positions,
+                                 int width,
+                                 int height,
+                                 int bpp,
+                                 int threads,
+                                 Function<byte[], T> mapper)
+    throws ServiceException, AccessException {
+        String    error    = "Cannot read raw tiles for " + this;
+        TileCache cache    = conn.getTileCache();
+        int[]     chunk    = getChunkSize(conn, width, height, bpp);
+        int       nThreads = Math.max(1, Math.min(threads, positions.size()));
+
+        List<RawPixelsStorePrx>          opened = new ArrayList<>(nThreads);
+        BlockingQueue<RawPixelsStorePrx> stores = new ArrayBlockingQueue<>(nThreads);
+        boolean                          done   = false;
+        try {
+            for (int i = 0; i < nThreads; i++) {
+                RawPixelsStorePrx store = conn.getPixelsStore(getId());
+                opened.add(store);
+                stores.add(store);
+            }
+
+            // At most nThreads tiles are read at once, so a store is always available
+            List<T> tiles = Batches.map(conn.getExecutor(), new ArrayList<>(positions), pos -> {
+                RawPixelsStorePrx store = stores.poll();
+                try {
+                    byte[] tile = call(store, s -> readTile(cache, s, pos, width, height, bpp, chunk), error);
+                    return mapper.apply(tile);
+                } finally {
+                    stores.add(store);
+                }
+            }, nThreads, error);
+            done = true;
+            return tiles;
+        } catch (ExecutionException e) {
+            throw new AccessException(error, e);
+        } finally {
+            for (RawPixelsStorePrx store : opened) {
+                if (done) {
+                    conn.releasePixelsStore(getId(), store);
+                } else {
+                    conn.discardPixelsStore(store);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Borrows a raw pixels store for these pixels from the connection, applies the reader to it and gives it back.
+     * <p>The store is closed instead of being given back if an error occurs.</p>
+     *
+     * @param conn   The connection handler.
+     * @param reader The function applied to the store.
+     * @param error  The message, if an exception is thrown.
+     * @param <T>    The type of the result.
+     *
+     * @return The function output.
+     *
+     * @throws ServiceException Cannot connect to OMERO.
+     * @throws AccessException  Cannot access data.
+     */
+    private <T> T withStore(ConnectionHandler conn,
+                            OMEROFunction<? super RawPixelsStorePrx, ? extends T> reader,
+                            String error)
+    throws ServiceException, AccessException {
+        RawPixelsStorePrx store    = conn.getPixelsStore(getId());
+        boolean           released = false;
+        try {
+            T result = call(store, reader, error);
+            conn.releasePixelsStore(getId(), store);
+            released = true;
+            return result;
+        } finally {
+            if (!released) {
+                conn.discardPixelsStore(store);
+            }
+        }
+    }
+
+
+    /**
+     * Reads the tile at the specified position, with the defined width and height, from the cache if possible or from
+     * a raw pixels store otherwise (the tile is then added to the cache).
+     *
+     * @param cache  The tile cache (can be {@code null}).
+     * @param store  The raw pixels store.
+     * @param start  Start position of the tile.
+     * @param width  Width of the tile.
+     * @param height Height of the tile.
+     * @param bpp    Bytes per pixels of the image.
+     * @param chunk  Maximum size (width, height) of each request.
+     *
+     * @return Array of bytes containing the pixel values.
+     *
+     * @throws ServerError Server error.
+     */
+    private byte[] readTile(TileCache cache,
+                            RawPixelsStorePrx store,
+                            Coordinates start,
+                            int width,
+                            int height,
+                            int bpp,
+                            int[] chunk)
+    throws ServerError {
+        byte[] tile;
+        if (cache != null) {
+            TileCache.Key key = new TileCache.Key(getId(), start, width, height);
+            tile = cache.get(key);
+            if (tile == null) {
+                tile = readTile(store, start, width, height, bpp, chunk);
+                cache.put(key, tile);
+            }
+        } else {
+            tile = readTile(store, start, width, height, bpp, chunk);
+        }
+        return tile;
+    }
+
+
+    /**
+     * Reads the tile at the specified position from a raw pixels store, with the defined width and height.
+     *
+     * @param store  The raw pixels store.
+     * @param start  Start position of the tile.
+     * @param width  Width of the tile.
+     * @param height Height of the tile.
+     * @param bpp    Bytes per pixels of the image.
+     * @param chunk  Maximum size (width, height) of each request.
+     *
+     * @return Array of bytes containing the pixel values.
+     *
+     * @throws ServerError Server error.
+     */
+    private static byte[] readTile(RawPixelsStorePrx store,
+                                   Coordinates start,
+                                   int width,
+                                   int height,
+                                   int bpp,
+                                   int[] chunk)
+    throws ServerError {
         int c = start.getC();
         int z = start.getZ();
         int t = start.getT();
 
-        for (int relX = 0, x = start.getX(); relX < width; relX += MAX_DIST, x += MAX_DIST) {
-            int sizeX = Math.min(MAX_DIST, width - relX);
-            for (int relY = 0, y = start.getY(); relY < height; relY += MAX_DIST, y += MAX_DIST) {
-                int         sizeY = Math.min(MAX_DIST, height - relY);
-                Plane2D     p     = rawDataFacility.getTile(ctx, data, z, t, c, x, y, sizeX, sizeY);
+        if (width <= chunk[0] && height <= chunk[1]) {
+            // Single request: the returned array can be used as is
+            return store.getTile(z, c, t, start.getX(), start.getY(), width, height);
+        }
+
+        byte[] tile = new byte[height * width * bpp];
+        int chunkX = chunk[0];
+        int chunkY = chunk[1];
+        for (int relX = 0, x = start.getX(); relX < width; relX += chunkX, x += chunkX) {
+            int sizeX = Math.min(chunkX, width - relX);
+            for (int relY = 0, y = start.getY(); relY < height; relY += chunkY, y += chunkY) {
+                int         sizeY = Math.min(chunkY, height - relY);
+                byte[]      raw   = store.getTile(z, c, t, x, y, sizeX, sizeY);
                 Coordinates pos   = new Coordinates(relX, relY, c, z, t);
-                copy(tile, p, pos, sizeX, sizeY, width, bpp);
+                copy(tile, raw, pos, sizeX, sizeY, width, bpp);
             }
         }
         return tile;
@@ -666,9 +1501,33 @@ public class PixelsWrapper extends ObjectWrapper<PixelsData> implements Pixels {
      * @return 5D bounds.
      */
     Bounds getBounds(int[] xBounds, int[] yBounds, int[] cBounds, int[] zBounds, int[] tBounds) {
+        return getBounds(data.getSizeX(), data.getSizeY(), xBounds, yBounds, cBounds, zBounds, tBounds);
+    }
+
+
+    /**
+     * Checks all bounds, for a plane of the given size (at a given resolution level, for example).
+     *
+     * @param sizeX   Size of the plane on the X axis.
+     * @param sizeY   Size of the plane on the Y axis.
+     * @param xBounds Array containing the X bounds from which the pixels should be retrieved.
+     * @param yBounds Array containing the Y bounds from which the pixels should be retrieved.
+     * @param cBounds Array containing the C bounds from which the pixels should be retrieved.
+     * @param zBounds Array containing the Z bounds from which the pixels should be retrieved.
+     * @param tBounds Array containing the T bounds from which the pixels should be retrieved.
+     *
+     * @return 5D bounds.
+     */
+    Bounds getBounds(int sizeX,
+                     int sizeY,
+                     int[] xBounds,
+                     int[] yBounds,
+                     int[] cBounds,
+                     int[] zBounds,
+                     int[] tBounds) {
         int[][] limits = new int[5][2];
-        limits[0] = checkBounds(xBounds, data.getSizeX());
-        limits[1] = checkBounds(yBounds, data.getSizeY());
+        limits[0] = checkBounds(xBounds, sizeX);
+        limits[1] = checkBounds(yBounds, sizeY);
         limits[2] = checkBounds(cBounds, data.getSizeC());
         limits[3] = checkBounds(zBounds, data.getSizeZ());
         limits[4] = checkBounds(tBounds, data.getSizeT());
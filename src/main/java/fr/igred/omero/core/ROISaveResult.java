@@ -0,0 +1,157 @@
+/*
+ *  Copyright (C) 2020-2025 GReD
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ * Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+
+
+package fr.igred.omero.core;
+
+
+import fr.igred.omero.roi.ROI;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Result of a chunked ROI save (see {@link Image#saveROIs(fr.igred.omero.client.DataManager, java.util.Collection,
+ * int, int)}).
+ * <p>Each chunk is saved in its own transaction: the ROIs from the chunks which could not be saved are kept as
+ * pending, so that the save can be resumed from there.</p>
+ */
+public final class ROISaveResult {
+
+    /** Saved ROIs */
+    private final List<ROI> saved = new ArrayList<>(0);
+
+    /** ROIs which were not saved */
+    private final List<ROI> pending = new ArrayList<>(0);
+
+    /** Errors thrown for the chunks which were not saved */
+    private final List<Exception> errors = new ArrayList<>(0);
+
+    /** Number of chunks */
+    private int chunks;
+
+    /** Number of saved chunks */
+    private int savedChunks;
+
+
+    /**
+     * Constructor of the ROISaveResult class.
+     */
+    ROISaveResult() {
+    }
+
+
+    /**
+     * Adds the ROIs returned for a saved chunk.
+     *
+     * @param rois The saved ROIs.
+     */
+    void addSaved(List<ROI> rois) {
+        chunks++;
+        savedChunks++;
+        saved.addAll(rois);
+    }
+
+
+    /**
+     * Adds the ROIs from a chunk which could not be saved.
+     *
+     * @param rois  The ROIs which were not saved.
+     * @param error The error thrown.
+     */
+    void addFailed(List<? extends ROI> rois, Exception error) {
+        chunks++;
+        pending.addAll(rois);
+        errors.add(error);
+    }
+
+
+    /**
+     * Returns the saved ROIs, as returned by OMERO, in chunk order.
+     *
+     * @return See above.
+     */
+    public List<ROI> getSaved() {
+        return Collections.unmodifiableList(saved);
+    }
+
+
+    /**
+     * Returns the ROIs which were not saved, in their original order. Saving them again resumes the whole save.
+     * <p>A chunk may fail on a timeout although the server committed it: in that case, its ROIs are both pending and
+     * linked to the image, and saving them again duplicates them.</p>
+     *
+     * @return See above.
+     */
+    public List<ROI> getPending() {
+        return Collections.unmodifiableList(pending);
+    }
+
+
+    /**
+     * Returns the errors thrown for the chunks which were not saved.
+     *
+     * @return See above.
+     */
+    public List<Exception> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+
+    /**
+     * Returns the number of chunks.
+     *
+     * @return See above.
+     */
+    public int getChunkCount() {
+        return chunks;
+    }
+
+
+    /**
+     * Returns the number of chunks which were saved.
+     *
+     * @return See above.
+     */
+    public int getSavedChunkCount() {
+        return savedChunks;
+    }
+
+
+    /**
+     * Returns {@code true} if all the ROIs were saved.
+     *
+     * @return See above.
+     */
+    public boolean isComplete() {
+        return pending.isEmpty();
+    }
+
+
+    @Override
+    public String toString() {
+        return "ROISaveResult{" +
+               "saved=" + saved.size() +
+               ", pending=" + pending.size() +
+               ", chunks=" + chunks +
+               ", savedChunks=" + savedChunks +
+               "}";
+    }
+
+}
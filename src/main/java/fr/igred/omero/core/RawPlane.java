@@ -0,0 +1,116 @@
+/*
+ *  Copyright (C) 2020-2025 GReD
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ * Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.igred.omero.core;
+
+
+import fr.igred.omero.util.Coordinates;
+
+
+/** Class containing the raw values of a plane (or part of a plane) */
+public class RawPlane {
+
+    /** Position of the plane (the X and Y coordinates being the upper left corner) */
+    private final Coordinates position;
+    /** Width of the plane */
+    private final int         width;
+    /** Height of the plane */
+    private final int         height;
+    /** Bytes per pixels */
+    private final int         bpp;
+    /** Raw values */
+    private final byte[]      values;
+
+
+    /**
+     * RawPlane constructor.
+     *
+     * @param position Position of the plane.
+     * @param width    Width of the plane.
+     * @param height   Height of the plane.
+     * @param bpp      Bytes per pixels.
+     * @param values   Raw values, stored row by row.
+     */
+    public RawPlane(Coordinates position, int width, int height, int bpp, byte[] values) {
+        this.position = position;
+        this.width    = width;
+        this.height   = height;
+        this.bpp      = bpp;
+        this.values   = values;
+    }
+
+
+    /**
+     * Gets the position of the plane.
+     *
+     * @return See above.
+     */
+    public Coordinates getPosition() {
+        return position;
+    }
+
+
+    /**
+     * Gets the width of the plane.
+     *
+     * @return See above.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+
+    /**
+     * Gets the height of the plane.
+     *
+     * @return See above.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+
+    /**
+     * Gets the number of bytes per pixels.
+     *
+     * @return See above.
+     */
+    public int getBytesPerPixel() {
+        return bpp;
+    }
+
+
+    /**
+     * Gets the raw values (row by row, big-endian).
+     *
+     * @return See above.
+     */
+    public byte[] getValues() {
+        return values;
+    }
+
+
+    @Override
+    public String toString() {
+        return "RawPlane{" +
+               "position=" + position +
+               ", width=" + width +
+               ", height=" + height +
+               ", bpp=" + bpp +
+               "}";
+    }
+
+}
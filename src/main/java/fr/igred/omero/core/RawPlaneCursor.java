@@ -0,0 +1,230 @@
+/*
+ *  Copyright (C) 2020-2025 GReD
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ * Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.igred.omero.core;
+
+
+import fr.igred.omero.client.ConnectionHandler;
+import fr.igred.omero.exception.AccessException;
+import fr.igred.omero.exception.ExceptionHandler.ThrowingFunction;
+import fr.igred.omero.exception.ServiceException;
+import fr.igred.omero.util.Coordinates;
+import omero.ServerError;
+import omero.api.RawPixelsStorePrx;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.WARNING;
+
+
+/**
+ * Cursor over the planes of a {@link Pixels} object, retrieved lazily.
+ * <p>Planes are read from a raw pixels store borrowed from the connection, in T, Z, C order. At most
+ * {@code prefetch} planes are retrieved in the background while the current one is processed, so that memory usage
+ * stays bounded.</p>
+ * <p>The cursor has to be closed once done, to give the raw pixels store back. Planes are prefetched by a daemon
+ * thread, which stops once idle, so an unclosed cursor does not prevent the JVM from exiting.</p>
+ */
+public class RawPlaneCursor implements AutoCloseable {
+
+    /** Maximum time to wait for a pending read when closing, in seconds */
+    private static final long CLOSE_TIMEOUT = 30L;
+
+    /** Time after which the idle prefetch thread is stopped, in seconds */
+    private static final long KEEP_ALIVE = 30L;
+
+    /** Connection handler the store was borrowed from */
+    private final ConnectionHandler conn;
+
+    /** Pixels ID */
+    private final long pixelsId;
+
+    /** Raw pixels store */
+    private final RawPixelsStorePrx store;
+
+    /** Whether the store can be given back for reuse */
+    private final boolean reusable;
+
+    /** Function reading a plane at a given position */
+    private final ThrowingFunction<Coordinates, byte[], ServerError> reader;
+
+    /** Executor used to prefetch planes */
+    private final ExecutorService executor;
+
+    /** Positions of the planes still to be submitted */
+    private final Iterator<Coordinates> positions;
+
+    /** Planes being retrieved */
+    private final Deque<Future<RawPlane>> window;
+
+    /** Width of the planes */
+    private final int width;
+
+    /** Height of the planes */
+    private final int height;
+
+    /** Bytes per pixels */
+    private final int bpp;
+
+    /** Number of planes to prefetch */
+    private final int prefetch;
+
+    /** Error message */
+    private final String error;
+
+    /** Whether a plane could not be read */
+    private volatile boolean failed;
+
+
+    /**
+     * Constructor of the RawPlaneCursor class.
+     *
+     * @param conn      The connection handler the store was borrowed from.
+     * @param pixelsId  The pixels ID.
+     * @param store     The raw pixels store (given back when this cursor is closed).
+     * @param reusable  Whether the store can be reused once done (otherwise, it is discarded).
+     * @param reader    The function reading a plane from the store at a given position.
+     * @param positions Positions of the planes.
+     * @param width     Width of the planes.
+     * @param height    Height of the planes.
+     * @param bpp       Bytes per pixels.
+     * @param prefetch  Number of planes to prefetch.
+     * @param error     Error message, if a plane cannot be read.
+     */
+    RawPlaneCursor(ConnectionHandler conn,
+                   long pixelsId,
+                   RawPixelsStorePrx store,
+                   boolean reusable,
+                   ThrowingFunction<Coordinates, byte[], ServerError> reader,
+                   List<Coordinates> positions,
+                   int width,
+                   int height,
+                   int bpp,
+                   int prefetch,
+                   String error) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1,
+                                                         KEEP_ALIVE, TimeUnit.SECONDS,
+                                                         new LinkedBlockingQueue<>(),
+                                                         r -> {
+                                                             Thread thread = new Thread(r, "pixels-plane-cursor");
+                                                             thread.setDaemon(true);
+                                                             return thread;
+                                                         });
+        pool.allowCoreThreadTimeOut(true);
+        this.conn      = conn;
+        this.pixelsId  = pixelsId;
+        this.store     = store;
+        this.reusable  = reusable;
+        this.reader    = reader;
+        this.executor  = pool;
+        this.positions = positions.iterator();
+        this.window    = new ArrayDeque<>(Math.max(1, prefetch + 1));
+        this.width     = width;
+        this.height    = height;
+        this.bpp       = bpp;
+        this.prefetch  = Math.max(0, prefetch);
+        this.error     = error;
+        fill(this.prefetch);
+    }
+
+
+    /**
+     * Submits the next planes until the requested number of planes are pending.
+     *
+     * @param pending The number of pending planes.
+     */
+    private void fill(int pending) {
+        while (window.size() < pending && positions.hasNext()) {
+            Coordinates pos = positions.next();
+            window.add(executor.submit(() -> {
+                try {
+                    byte[] values = reader.apply(pos);
+                    return new RawPlane(pos, width, height, bpp, values);
+                } catch (ServerError | RuntimeException e) {
+                    failed = true;
+                    throw e;
+                }
+            }));
+        }
+    }
+
+
+    /**
+     * Returns {@code true} if there are more planes to read.
+     *
+     * @return See above.
+     */
+    public boolean hasNext() {
+        return !window.isEmpty() || positions.hasNext();
+    }
+
+
+    /**
+     * Returns the next plane.
+     *
+     * @return See above.
+     *
+     * @throws ServiceException       Cannot connect to OMERO.
+     * @throws AccessException        Cannot access data.
+     * @throws NoSuchElementException If there are no more planes.
+     */
+    public RawPlane next() throws ServiceException, AccessException {
+        fill(1);
+        Future<RawPlane> future = window.poll();
+        if (future == null) {
+            throw new NoSuchElementException("No more planes");
+        }
+        fill(prefetch);
+        return PixelsWrapper.getResult(future, error);
+    }
+
+
+    /**
+     * Stops prefetching and gives the raw pixels store back (or closes it if it cannot be reused).
+     */
+    @Override
+    public void close() {
+        window.forEach(f -> f.cancel(false));
+        window.clear();
+        executor.shutdown();
+        boolean terminated = false;
+        try {
+            terminated = executor.awaitTermination(CLOSE_TIMEOUT, TimeUnit.SECONDS);
+            if (!terminated) {
+                Logger.getLogger(getClass().getName())
+                      .log(WARNING, "Timed out while waiting for pending planes");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (reusable && terminated && !failed) {
+            conn.releasePixelsStore(pixelsId, store);
+        } else {
+            conn.discardPixelsStore(store);
+        }
+    }
+
+}
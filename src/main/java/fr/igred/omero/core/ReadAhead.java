@@ -0,0 +1,285 @@
+/*
+ *  Copyright (C) 2020-2025 GReD
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ * Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+
+package fr.igred.omero.core;
+
+
+import fr.igred.omero.exception.AccessException;
+import fr.igred.omero.exception.ExceptionHandler.ThrowingFunction;
+import fr.igred.omero.util.Coordinates;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Read-ahead buffer for planes accessed sequentially along Z or T.
+ * <p>Each region (channel, X, Y, width and height) is tracked separately, so that sequential access is detected even
+ * when channels are interleaved. Once two consecutive planes along Z or T have been requested for a region, the next
+ * planes along the same axis are retrieved in the background, and kept in a bounded buffer until requested.</p>
+ */
+final class ReadAhead {
+
+    /** Time after which the idle prefetch thread is stopped, in seconds */
+    private static final long KEEP_ALIVE = 30L;
+
+    /** Number of planes to prefetch for each region */
+    private final int depth;
+
+    /** Maximum number of regions tracked */
+    private final int maxStreams;
+
+    /** Size of the image on the Z axis */
+    private final int sizeZ;
+
+    /** Size of the image on the T axis */
+    private final int sizeT;
+
+    /** Executor used to prefetch planes */
+    private final ExecutorService executor;
+
+    /** Planes being prefetched, from the oldest to the most recent */
+    private final Map<TileCache.Key, Future<byte[]>> buffer;
+
+    /** Last position requested for each region, from the least recently used to the most recent */
+    private final Map<TileCache.Key, Stream> streams;
+
+
+    /**
+     * Constructor of the ReadAhead class.
+     *
+     * @param depth The number of planes to prefetch for each region.
+     * @param sizeC Size of the image on the C axis.
+     * @param sizeZ Size of the image on the Z axis.
+     * @param sizeT Size of the image on the T axis.
+     */
+    ReadAhead(int depth, int sizeC, int sizeZ, int sizeT) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1,
+                                                         KEEP_ALIVE, TimeUnit.SECONDS,
+                                                         new LinkedBlockingQueue<>(),
+                                                         r -> {
+                                                             Thread thread = new Thread(r, "pixels-read-ahead");
+                                                             thread.setDaemon(true);
+                                                             return thread;
+                                                         });
+        pool.allowCoreThreadTimeOut(true);
+        this.depth      = Math.max(1, depth);
+        this.maxStreams = Math.max(1, sizeC);
+        this.sizeZ      = sizeZ;
+        this.sizeT      = sizeT;
+        this.executor   = pool;
+        this.buffer     = new LinkedHashMap<>(16);
+        this.streams    = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+
+    /**
+     * Returns the key identifying the region of a plane.
+     *
+     * @param key The plane key.
+     *
+     * @return See above.
+     */
+    private static TileCache.Key getRegion(TileCache.Key key) {
+        Coordinates start = key.getStart();
+        return new TileCache.Key(key.getPixelsId(),
+                                 start.getC(),
+                                 0,
+                                 0,
+                                 start.getX(),
+                                 start.getY(),
+                                 key.getWidth(),
+                                 key.getHeight());
+    }
+
+
+    /**
+     * Returns the number of planes to prefetch for each region.
+     *
+     * @return See above.
+     */
+    int getDepth() {
+        return depth;
+    }
+
+
+    /**
+     * Reads a plane, from the buffer if it was prefetched, or with the loader otherwise.
+     * <p>If the plane follows the previous one requested for the same region along Z or T, the next planes along this
+     * axis are prefetched with the loader.</p>
+     *
+     * @param key    The plane key.
+     * @param loader The function retrieving a plane from its start position.
+     *
+     * @return The raw values of the plane.
+     *
+     * @throws AccessException If an error occurs while retrieving the plane data from the pixels source.
+     */
+    byte[] read(TileCache.Key key, ThrowingFunction<Coordinates, byte[], AccessException> loader)
+    throws AccessException {
+        Future<byte[]> pending;
+        synchronized (this) {
+            pending = buffer.remove(key);
+            Stream stream = update(key);
+            if (stream.isSequential()) {
+                prefetch(key, stream, loader);
+            }
+        }
+
+        byte[] values = null;
+        if (pending != null) {
+            try {
+                values = pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AccessException("Interrupted while reading plane " + key, e);
+            } catch (ExecutionException | CancellationException e) {
+                // The plane is retrieved again below, so that the error (if any) is reported to the caller
+            }
+        }
+        if (values == null) {
+            values = loader.apply(key.getStart());
+        }
+        return values;
+    }
+
+
+    /**
+     * Records the requested plane for its region, and detects sequential access.
+     * <p>Has to be called while holding the lock on this object.</p>
+     *
+     * @param key The plane key.
+     *
+     * @return The updated region state.
+     */
+    private Stream update(TileCache.Key key) {
+        TileCache.Key region = getRegion(key);
+        Coordinates   start  = key.getStart();
+
+        Stream stream = streams.get(region);
+        if (stream == null) {
+            stream = new Stream();
+            streams.put(region, stream);
+            Iterator<TileCache.Key> it = streams.keySet().iterator();
+            while (streams.size() > maxStreams && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        } else {
+            stream.follow(start.getZ(), start.getT());
+        }
+        stream.z = start.getZ();
+        stream.t = start.getT();
+        return stream;
+    }
+
+
+    /**
+     * Submits the next planes along the detected axis, if they are not already being retrieved, and evicts the oldest
+     * ones if the buffer is full.
+     * <p>Has to be called while holding the lock on this object.</p>
+     *
+     * @param key    The current plane key.
+     * @param stream The region state.
+     * @param loader The function retrieving a plane from its start position.
+     */
+    private void prefetch(TileCache.Key key,
+                          Stream stream,
+                          ThrowingFunction<Coordinates, byte[], AccessException> loader) {
+        Coordinates start = key.getStart();
+        for (int i = 1; i <= depth; i++) {
+            int z = start.getZ() + i * stream.stepZ;
+            int t = start.getT() + i * stream.stepT;
+            if (z >= sizeZ || t >= sizeT) {
+                break;
+            }
+            Coordinates   pos  = new Coordinates(start.getX(), start.getY(), start.getC(), z, t);
+            TileCache.Key next = new TileCache.Key(key.getPixelsId(), pos, key.getWidth(), key.getHeight());
+            if (!buffer.containsKey(next)) {
+                buffer.put(next, executor.submit(() -> loader.apply(pos)));
+            }
+        }
+        Iterator<Future<byte[]>> it = buffer.values().iterator();
+        while (buffer.size() > depth * maxStreams && it.hasNext()) {
+            it.next().cancel(false);
+            it.remove();
+        }
+    }
+
+
+    /**
+     * Cancels pending reads, empties the buffer and stops the prefetch thread.
+     */
+    synchronized void shutdown() {
+        buffer.values().forEach(f -> f.cancel(false));
+        buffer.clear();
+        streams.clear();
+        executor.shutdown();
+    }
+
+
+    /** Access state for a region */
+    private static final class Stream {
+
+        /** Last Z index requested */
+        private int z;
+
+        /** Last T index requested */
+        private int t;
+
+        /** Step between consecutive requests on the Z axis (0 or 1) */
+        private int stepZ;
+
+        /** Step between consecutive requests on the T axis (0 or 1) */
+        private int stepT;
+
+
+        /**
+         * Updates the step from the previous position to the specified one: if the plane is the next one along Z or
+         * T, the access is sequential along this axis.
+         *
+         * @param nextZ The requested Z index.
+         * @param nextT The requested T index.
+         */
+        void follow(int nextZ, int nextT) {
+            boolean nextAlongZ = nextZ == z + 1 && nextT == t;
+            boolean nextAlongT = nextT == t + 1 && nextZ == z;
+            stepZ = nextAlongZ ? 1 : 0;
+            stepT = nextAlongT ? 1 : 0;
+        }
+
+
+        /**
+         * Returns {@code true} if the access is sequential along Z or T.
+         *
+         * @return See above.
+         */
+        boolean isSequential() {
+            return stepZ != 0 || stepT != 0;
+        }
+
+    }
+
+}
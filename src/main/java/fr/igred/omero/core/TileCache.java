@@ -0,0 +1,192 @@
+/*
+ *  Copyright (C) 2020-2025 GReD
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ * Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.igred.omero.core;
+
+
+import fr.igred.omero.util.Coordinates;
+
+import java.util.Objects;
+
+
+/**
+ * Interface to cache tiles (raw values) locally, to avoid retrieving them from OMERO repeatedly.
+ * <p>Implementations have to be thread-safe.</p>
+ */
+public interface TileCache {
+
+    /**
+     * Retrieves a tile from the cache.
+     *
+     * @param key The tile key.
+     *
+     * @return The raw values of the tile, or {@code null} if the tile is not in the cache.
+     */
+    byte[] get(Key key);
+
+
+    /**
+     * Adds a tile to the cache.
+     *
+     * @param key    The tile key.
+     * @param values The raw values of the tile.
+     */
+    void put(Key key, byte[] values);
+
+
+    /**
+     * Removes all tiles from the cache.
+     */
+    void clear();
+
+
+    /** Key identifying a tile: pixels ID, position (C, Z, T, X, Y) and size. */
+    final class Key {
+
+        /** Pixels ID */
+        private final long pixelsId;
+        /** C coordinate */
+        private final int  c;
+        /** Z coordinate */
+        private final int  z;
+        /** T coordinate */
+        private final int  t;
+        /** X coordinate */
+        private final int  x;
+        /** Y coordinate */
+        private final int  y;
+        /** Tile width */
+        private final int  width;
+        /** Tile height */
+        private final int  height;
+
+
+        /**
+         * Key constructor.
+         *
+         * @param pixelsId The pixels ID.
+         * @param c        C coordinate.
+         * @param z        Z coordinate.
+         * @param t        T coordinate.
+         * @param x        X coordinate.
+         * @param y        Y coordinate.
+         * @param width    Tile width.
+         * @param height   Tile height.
+         */
+        public Key(long pixelsId, int c, int z, int t, int x, int y, int width, int height) {
+            this.pixelsId = pixelsId;
+            this.c        = c;
+            this.z        = z;
+            this.t        = t;
+            this.x        = x;
+            this.y        = y;
+            this.width    = width;
+            this.height   = height;
+        }
+
+
+        /**
+         * Key constructor.
+         *
+         * @param pixelsId The pixels ID.
+         * @param start    Start position of the tile.
+         * @param width    Tile width.
+         * @param height   Tile height.
+         */
+        public Key(long pixelsId, Coordinates start, int width, int height) {
+            this(pixelsId, start.getC(), start.getZ(), start.getT(), start.getX(), start.getY(), width, height);
+        }
+
+
+        /**
+         * Gets the pixels ID.
+         *
+         * @return See above.
+         */
+        public long getPixelsId() {
+            return pixelsId;
+        }
+
+
+        /**
+         * Gets the start position of the tile.
+         *
+         * @return See above.
+         */
+        public Coordinates getStart() {
+            return new Coordinates(x, y, c, z, t);
+        }
+
+
+        /**
+         * Gets the tile width.
+         *
+         * @return See above.
+         */
+        public int getWidth() {
+            return width;
+        }
+
+
+        /**
+         * Gets the tile height.
+         *
+         * @return See above.
+         */
+        public int getHeight() {
+            return height;
+        }
+
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (object == null || getClass() != object.getClass()) {
+                return false;
+            }
+            Key key = (Key) object;
+            return pixelsId == key.pixelsId
+                   && c == key.c && z == key.z && t == key.t
+                   && x == key.x && y == key.y
+                   && width == key.width && height == key.height;
+        }
+
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(pixelsId, c, z, t, x, y, width, height);
+        }
+
+
+        @Override
+        public String toString() {
+            return "Key{" +
+                   "pixelsId=" + pixelsId +
+                   ", c=" + c +
+                   ", z=" + z +
+                   ", t=" + t +
+                   ", x=" + x +
+                   ", y=" + y +
+                   ", width=" + width +
+                   ", height=" + height +
+                   "}";
+        }
+
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ *  Copyright (C) 2020-2025 GReD
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ * Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+
+
+package fr.igred.omero.exception;
+
+
+/**
+ * Reports an error that occurred on OMERO while lazily iterating over results, where checked exceptions cannot be
+ * thrown. The cause is the original {@link ServiceException} or {@link AccessException}.
+ */
+public class UncheckedOMEROException extends RuntimeException {
+
+    private static final long serialVersionUID = -4271584061829140633L;
+
+
+    /**
+     * Constructs a new exception with the specified detail message and cause.
+     *
+     * @param message Short explanation of the problem.
+     * @param cause   The exception that caused this one to be risen.
+     */
+    public UncheckedOMEROException(String message, Exception cause) {
+        super(message, cause);
+    }
+
+}
@@ -22,15 +22,20 @@ import fr.igred.omero.UserTest;
 import fr.igred.omero.containers.Dataset;
 import fr.igred.omero.core.Image;
 import omero.gateway.model.ImageData;
+import omero.gateway.model.TableDataColumn;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 class TableTest extends UserTest {
@@ -142,6 +147,142 @@ class TableTest extends UserTest {
     }
 
 
+    @Test
+    void testReadTableRowsAndColumns() throws Exception {
+        Dataset dataset = client.getDataset(DATASET1.id);
+
+        List<Image> images = dataset.getImages(client);
+
+        TableBuilder builder = new TableBuilder(2, "TableTest");
+        builder.setColumn(0, "Image", ImageData.class);
+        builder.setColumn(1, "Name", String.class);
+        builder.setRowCount(images.size());
+        for (Image image : images) {
+            builder.addRow(image.asDataObject(), image.getName());
+        }
+        Table table = builder.createTable();
+        dataset.addTable(client, table);
+
+        long fileId = table.getOriginalFileId();
+
+        Table        subset = dataset.getTable(client, fileId, 1, 1, 1);
+        TableCursor  cursor = dataset.getTableCursor(client, fileId, 1, 1);
+        List<Object> names  = new ArrayList<>(images.size());
+        cursor.forEachRemaining(row -> names.add(row[0]));
+        client.deleteTable(table);
+
+        assertEquals(table.getName(), subset.getName());
+        assertEquals(table.getId(), subset.getId());
+        assertEquals(1, subset.getColumns().length);
+        assertEquals(1, subset.getData()[0].length);
+        assertEquals(images.get(1).getName(), subset.getData()[0][0]);
+        assertEquals(table.getName(), cursor.getName());
+        assertEquals(images.size(), cursor.getNumberOfRows());
+        assertEquals(images.stream().map(Image::getName).collect(toList()), names);
+    }
+
+
+    @Test
+    void testListTables() throws Exception {
+        Dataset dataset = client.getDataset(DATASET1.id);
+
+        List<Image> images = dataset.getImages(client);
+
+        TableBuilder builder = new TableBuilder(2, "TableTest");
+        builder.setColumn(0, "Image", ImageData.class);
+        builder.setColumn(1, "Name", String.class);
+        builder.setRowCount(images.size());
+        for (Image image : images) {
+            builder.addRow(image.asDataObject(), image.getName());
+        }
+        Table table = builder.createTable();
+        dataset.addTable(client, table);
+
+        List<TableHandle> handles = dataset.listTables(client);
+        TableHandle       handle  = handles.get(0);
+        TableHandle       other   = dataset.listTables(client).get(0);
+
+        boolean equal        = handle.equals(other) && handle.hashCode() == other.hashCode();
+        boolean loadedBefore = handle.isLoaded();
+        Object  name         = handle.getData()[1][0];
+        client.deleteTable(table);
+
+        assertEquals(1, handles.size());
+        assertEquals(table.getName(), handle.getName());
+        assertEquals(table.getId(), handle.getId());
+        assertEquals(images.size(), handle.getNumberOfRows());
+        assertEquals(2, handle.getColumns().length);
+        assertTrue(equal);
+        assertFalse(loadedBefore);
+        assertTrue(handle.isLoaded());
+        assertEquals(images.get(0).getName(), name);
+    }
+
+
+    @Test
+    void testWriteTableInBatches() throws Exception {
+        Dataset dataset = client.getDataset(DATASET1.id);
+
+        List<Image> images = dataset.getImages(client);
+
+        TableDataColumn[] columns = {new TableDataColumn("Image", 0, ImageData.class),
+                                     new TableDataColumn("Name", 1, String.class),
+                                     new TableDataColumn("Index", 2, Long.class)};
+
+        TableWriter writer = new TableWriter(client, dataset, "TableTest", columns, 2);
+        writer.setStringWidth(256);
+        try {
+            for (int i = 0; i < 5; i++) {
+                Image image = images.get(i % images.size());
+                writer.addRow(image.asDataObject(), image.getName(), (long) i);
+            }
+        } finally {
+            writer.close();
+        }
+
+        Table table = dataset.getTable(client, writer.getOriginalFileId());
+        client.deleteTable(table);
+
+        assertEquals(5, writer.getRowCount());
+        assertEquals(writer.getId(), table.getId());
+        assertEquals("TableTest", table.getName());
+        assertEquals(5, table.getNumberOfRows());
+        assertEquals(images.get(0).getName(), table.getData()[1][0]);
+        assertEquals(4L, table.getData()[2][4]);
+    }
+
+
+    @Test
+    void testAbortTableWriter() throws Exception {
+        Dataset dataset = client.getDataset(DATASET1.id);
+
+        List<Image> images = dataset.getImages(client);
+        Image       image  = images.get(0);
+
+        TableDataColumn[] columns = {new TableDataColumn("Image", 0, ImageData.class),
+                                     new TableDataColumn("Name", 1, String.class)};
+
+        int         nTables = dataset.listTables(client).size();
+        TableWriter writer  = new TableWriter(client, dataset, "TableTest", columns, 2);
+        assertThrows(IllegalStateException.class, () -> writer.addRow(image.asDataObject(), image.getName()));
+        writer.setStringWidth(1);
+        assertThrows(IllegalArgumentException.class, () -> writer.addRow(image.asDataObject(), "TooLong"));
+        writer.addRow(image.asDataObject(), "a");
+        writer.addRow(image.asDataObject(), "b");
+        writer.addRow(image.asDataObject(), "c");
+
+        long fileId = writer.getOriginalFileId();
+        writer.abort();
+
+        assertNotEquals(-1L, fileId);
+        assertEquals(2, writer.getRowCount());
+        assertEquals(-1L, writer.getId());
+        assertEquals(-1L, writer.getOriginalFileId());
+        assertEquals(nTables, dataset.listTables(client).size());
+        assertThrows(IllegalStateException.class, () -> writer.addRow(image.asDataObject(), "d"));
+    }
+
+
     @Test
     void testReplaceTable() throws Exception {
         Dataset dataset = client.getDataset(DATASET1.id);
@@ -241,6 +382,51 @@ class TableTest extends UserTest {
     }
 
 
+    @Test
+    void testNumericColumns() {
+        TableBuilder builder = new TableBuilder(3, "TableTest");
+        builder.setColumn(0, "Name", String.class);
+        builder.setColumn(1, "Value", Double.class);
+        builder.setRowCount(2);
+        builder.addRow("a", 1.5, 0L);
+        builder.setColumn(2, "Count", Long.class);
+        builder.addRow("b", null, 3);
+
+        Table table = builder.createTable();
+
+        assertEquals(1.5, builder.getData(0, 1));
+        assertEquals(Double.NaN, builder.getData(1, 1));
+        assertEquals(3L, builder.getData(1, 2));
+        assertEquals(Double.class, table.getData()[1][0].getClass());
+        assertEquals(Long.class, table.getData()[2][1].getClass());
+    }
+
+
+    @Test
+    void testGrowTable() {
+        TableBuilder builder = new TableBuilder(2, "TableTest", 4);
+        builder.setColumn(0, "Name", String.class);
+        builder.setColumn(1, "Value", Double.class);
+        for (int i = 0; i < 100; i++) {
+            builder.setRowCount(builder.getRowCount() + 1);
+            builder.addRow("row " + i, (double) i);
+        }
+        builder.setRowCount(50);
+        builder.setRowCount(60);
+
+        assertEquals(60, builder.getRowCount());
+        assertEquals("row 49", builder.getData(49, 0));
+        assertNull(builder.getData(55, 0));
+        assertFalse(builder.isComplete());
+
+        Table table = builder.createTable();
+
+        assertEquals(50, table.getData()[0].length);
+        assertEquals(50, table.getData()[1].length);
+        assertEquals(49.0, table.getData()[1][49]);
+    }
+
+
     @Test
     void testErrorTableColumn() {
         TableBuilder table = new TableBuilder(2, "TableTest");
@@ -18,6 +18,7 @@
 package fr.igred.omero.client;
 
 
+import fr.igred.omero.Annotatable;
 import fr.igred.omero.RemoteObject;
 import fr.igred.omero.UserTest;
 import fr.igred.omero.containers.Dataset;
@@ -30,6 +31,10 @@ import fr.igred.omero.meta.Group;
 import fr.igred.omero.screen.Plate;
 import fr.igred.omero.screen.Screen;
 import fr.igred.omero.screen.Well;
+import omero.gateway.model.ImageData;
+import omero.model.ImageI;
+import omero.model.PixelsI;
+import omero.sys.ParametersI;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
@@ -37,9 +42,16 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
+import static omero.rtypes.rstring;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 class ClientTest extends UserTest {
@@ -63,6 +75,21 @@ class ClientTest extends UserTest {
     }
 
 
+    @Test
+    void testFindByQueryPaged() throws Exception {
+        String query = "select i from Image i order by i.id";
+
+        int  expected = client.findByQuery(query).size();
+        long count    = client.findByQuery(query, new ParametersI(), 5).count();
+
+        List<Image> images = client.findWrappedByQuery(Image.class, query, new ParametersI(), 5)
+                                   .limit(2)
+                                   .collect(Collectors.toList());
+        assertEquals(expected, count);
+        assertEquals(IMAGE1.id, images.get(0).getId());
+    }
+
+
     @Test
     void testProjectBasic() throws Exception {
         Project project = client.getProject(PROJECT1.id);
@@ -154,6 +181,27 @@ class ClientTest extends UserTest {
     }
 
 
+    @Test
+    void testGetImagesByIdsInBatches() throws Exception {
+        List<Image> images = client.getImages();
+        Long[]      ids    = images.stream().map(RemoteObject::getId).toArray(Long[]::new);
+
+        BrowserWrapper browser = (BrowserWrapper) client;
+        browser.setBatchSize(5);
+        browser.setBatchThreads(3);
+        try {
+            List<Image> batched = client.getImages(ids);
+            assertEquals(images.size(), batched.size());
+            for (int i = 0; i < images.size(); i++) {
+                assertEquals(images.get(i).getId(), batched.get(i).getId());
+            }
+        } finally {
+            browser.setBatchSize(BrowserWrapper.DEFAULT_BATCH_SIZE);
+            browser.setBatchThreads(BrowserWrapper.DEFAULT_BATCH_THREADS);
+        }
+    }
+
+
     @Test
     void testGetImage() throws Exception {
         Image image = client.getImage(IMAGE1.id);
@@ -161,6 +209,68 @@ class ClientTest extends UserTest {
     }
 
 
+    @Test
+    void testGetImageCached() throws Exception {
+        BrowserWrapper browser = (BrowserWrapper) client;
+        browser.setCache(10, 1, TimeUnit.MINUTES);
+        try {
+            Image image1 = client.getImage(IMAGE1.id);
+            Image image2 = client.getImage(IMAGE1.id);
+            browser.invalidateCache(IMAGE1.id);
+            Image image3 = client.getImage(IMAGE1.id);
+
+            assertNotSame(image1, image2);
+            assertNotSame(image1.asDataObject(), image2.asDataObject());
+            assertNotSame(image1, image3);
+            assertEquals(1, browser.getCacheHits());
+            assertEquals(2, browser.getCacheMisses());
+
+            // Changes to a returned image are not shared with later calls
+            image3.setName("Cached");
+            assertEquals(IMAGE1.name, client.getImage(IMAGE1.id).getName());
+        } finally {
+            browser.setCache(0, 0, TimeUnit.MINUTES);
+        }
+    }
+
+
+    @Test
+    void testObjectCacheCopies() {
+        ImageI  image  = new ImageI(1L, true);
+        PixelsI pixels = new PixelsI(2L, true);
+        image.setName(rstring("name"));
+        image.addPixels(pixels);
+
+        ObjectCache cache = new ObjectCache();
+        cache.configure(1, 1, TimeUnit.MINUTES);
+        cache.put(ImageData.class, 1L, 3L, new ImageData(image));
+        ImageData copy = cache.get(ImageData.class, 1L, 3L);
+        copy.setName("changed");
+
+        assertNotSame(image, copy.asIObject());
+        assertEquals("name", cache.get(ImageData.class, 1L, 3L).getName());
+        assertSame(pixels, copy.asImage().getPrimaryPixels());
+    }
+
+
+    @Test
+    void testCacheInvalidatedOnSave() throws Exception {
+        BrowserWrapper browser = (BrowserWrapper) client;
+        browser.setCache(10, 1, TimeUnit.MINUTES);
+        Image  image       = client.getImage(IMAGE1.id);
+        String description = image.getDescription();
+        try {
+            image.setDescription("Foo");
+            image.saveAndUpdate(client);
+            assertEquals("Foo", client.getImage(IMAGE1.id).getDescription());
+        } finally {
+            image.setDescription(description);
+            image.saveAndUpdate(client);
+            browser.setCache(0, 0, TimeUnit.MINUTES);
+        }
+    }
+
+
     @Test
     void testGetImagesName() throws Exception {
         List<Image> images = client.getImages(IMAGE1.name);
@@ -175,6 +285,30 @@ class ClientTest extends UserTest {
     }
 
 
+    @Test
+    void testGetImagesLikeWithWildcards() throws Exception {
+        assertEquals(0, client.getImagesLike("image_").size());
+        assertEquals(0, client.getImagesLike("%").size());
+        assertEquals("%a\\\\b\\%c\\_d%", Browser.toLikePattern("a\\b%c_d"));
+    }
+
+
+    @Test
+    void testGetAnnotationsOfMixedTypes() throws Exception {
+        Collection<Annotatable> objects = new ArrayList<>(2);
+        objects.add(client.getImage(IMAGE1.id));
+        objects.add(client.getDataset(DATASET1.id));
+        assertThrows(IllegalArgumentException.class, () -> client.getTags(objects));
+    }
+
+
+    @Test
+    void testGetImagesLikeWithRegex() throws Exception {
+        List<Image> images = client.getImagesLike(".fake", Pattern.compile("^image1\\."));
+        assertEquals(3, images.size());
+    }
+
+
     @Test
     void testGetImagesWithKey() throws Exception {
         List<Image> images = client.getImagesWithKey("testKey1");
@@ -182,6 +316,13 @@ class ClientTest extends UserTest {
     }
 
 
+    @Test
+    void testGetImagesWithUnknownKey() throws Exception {
+        List<Image> images = client.getImagesWithKey("unknownKey");
+        assertTrue(images.isEmpty());
+    }
+
+
     @Test
     void testGetImagesWithKeyValuePair() throws Exception {
         String key = "testKey1";
@@ -26,6 +26,7 @@ import fr.igred.omero.annotations.MapAnnotation;
 import fr.igred.omero.annotations.MapAnnotationWrapper;
 import fr.igred.omero.annotations.TagAnnotation;
 import fr.igred.omero.annotations.TagAnnotationWrapper;
+import fr.igred.omero.client.ImageHierarchy;
 import fr.igred.omero.roi.EllipseWrapper;
 import fr.igred.omero.roi.ROI;
 import fr.igred.omero.roi.ROIWrapper;
@@ -45,6 +46,7 @@ import omero.gateway.model.MapAnnotationData;
 import omero.model.NamedValue;
 import org.junit.jupiter.api.Test;
 
+import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.nio.file.Files;
@@ -55,7 +57,9 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -111,6 +115,67 @@ class ImageTest extends UserTest {
     }
 
 
+    @Test
+    void testGetHierarchy() throws Exception {
+        final long id = 5L;
+
+        List<Image>    images    = client.getImages(IMAGE1.id, id);
+        ImageHierarchy hierarchy = client.getHierarchy(images);
+
+        assertEquals(DATASET1.id, hierarchy.getDatasets(IMAGE1.id).get(0).getId());
+        assertEquals(PROJECT1.id, hierarchy.getProjects(IMAGE1.id).get(0).getId());
+        assertTrue(hierarchy.getWells(IMAGE1.id).isEmpty());
+        assertEquals(PLATE1.id, hierarchy.getPlates(id).get(0).getId());
+        assertEquals(SCREEN1.id, hierarchy.getScreens(id).get(0).getId());
+        assertEquals(images.get(1).getWells(client).get(0).getId(), hierarchy.getWells(id).get(0).getId());
+    }
+
+
+    @Test
+    void testGetAnnotationsInBulk() throws Exception {
+        List<Image> images = client.getImages(IMAGE1.id, IMAGE2.id);
+
+        Map<Long, List<TagAnnotation>>             tags  = client.getTags(images);
+        Map<Long, List<Map.Entry<String, String>>> pairs = client.getKeyValuePairs(images);
+        for (Image image : images) {
+            List<Long> expected = image.getTags(client)
+                                       .stream()
+                                       .map(RemoteObject::getId)
+                                       .collect(toList());
+            List<Long> actual = tags.get(image.getId())
+                                    .stream()
+                                    .map(RemoteObject::getId)
+                                    .collect(toList());
+            assertEquals(expected, actual);
+            assertEquals(image.getKeyValuePairs(client).size(), pairs.get(image.getId()).size());
+        }
+    }
+
+
+    @Test
+    void testGetROIsInBulk() throws Exception {
+        List<Image> images = client.getImages(IMAGE1.id, IMAGE2.id);
+
+        Map<Long, List<ROI>> rois = client.getROIs(images);
+        long streamed = client.streamROIs(images).count();
+
+        int total = 0;
+        for (Image image : images) {
+            List<Long> expected = image.getROIs(client)
+                                       .stream()
+                                       .map(RemoteObject::getId)
+                                       .collect(toList());
+            List<Long> actual = rois.get(image.getId())
+                                    .stream()
+                                    .map(RemoteObject::getId)
+                                    .collect(toList());
+            assertEquals(expected, actual);
+            total += expected.size();
+        }
+        assertEquals(total, streamed);
+    }
+
+
     @Test
     void testGetPlateAcquisitions() throws Exception {
         PlateAcquisition pa = client.getPlate(PLATE1.id)
@@ -422,6 +487,38 @@ class ImageTest extends UserTest {
     }
 
 
+    @Test
+    void testToImagePlusParallel() throws Exception {
+        Image image = client.getImage(IMAGE2.id);
+
+        ImagePlus reference = image.toImagePlus(client);
+        ImagePlus imp       = image.toImagePlus(client, null, null, null, null, null, 4);
+
+        ImageCalculator calculator = new ImageCalculator();
+        ImagePlus       difference = calculator.run("difference create stack", reference, imp);
+        ImageStatistics stats      = difference.getStatistics();
+
+        assertEquals(0, (int) stats.max);
+        assertEquals(reference.getStackSize(), imp.getStackSize());
+        assertEquals(reference.getDisplayRangeMin(), imp.getDisplayRangeMin(), DOUBLE_PRECISION);
+        assertEquals(reference.getDisplayRangeMax(), imp.getDisplayRangeMax(), DOUBLE_PRECISION);
+    }
+
+
+    @Test
+    void testToImagePlusDownsampled() throws Exception {
+        Image image = client.getImage(IMAGE2.id);
+
+        ImagePlus reference = image.toImagePlus(client);
+        ImagePlus imp       = image.toImagePlusDownsampled(client, 4);
+
+        // Image has no pyramid: full resolution is used
+        assertEquals(reference.getWidth(), imp.getWidth());
+        assertEquals(reference.getHeight(), imp.getHeight());
+        assertEquals(reference.getStackSize(), imp.getStackSize());
+    }
+
+
     @Test
     void testGetImageChannel() throws Exception {
         Image image = client.getImage(IMAGE1.id);
@@ -547,6 +644,34 @@ class ImageTest extends UserTest {
     }
 
 
+    @Test
+    void testLinkTagsInBulk() throws Exception {
+        List<Image> images = client.getImages(IMAGE1.id, IMAGE2.id);
+
+        String desc = "tags attached in bulk";
+
+        TagAnnotation tag1 = new TagAnnotationWrapper(client, "Bulk tag 1", desc);
+        TagAnnotation tag2 = new TagAnnotationWrapper(client, "Bulk tag 2", desc);
+
+        int created = client.link(images, Collections.singletonList(tag1), 1);
+        int added   = client.link(images, Arrays.asList(tag1, tag2), 1);
+
+        List<Long> linked = client.getTags(images)
+                                  .values()
+                                  .stream()
+                                  .flatMap(List::stream)
+                                  .map(RemoteObject::getId)
+                                  .filter(id -> id == tag1.getId() || id == tag2.getId())
+                                  .collect(toList());
+        client.delete(tag1);
+        client.delete(tag2);
+
+        assertEquals(2, created);
+        assertEquals(2, added);
+        assertEquals(4, linked.size());
+    }
+
+
     @Test
     void testAddNewTagsToImage() throws Exception {
         Image image = client.getImage(IMAGE1.id);
@@ -688,6 +813,19 @@ class ImageTest extends UserTest {
     }
 
 
+    @Test
+    void testGetChannelColors() throws Exception {
+        Image image = client.getImage(IMAGE1.id);
+
+        List<Color> colors = image.getChannelColors(client);
+        assertEquals(image.getPixels().getSizeC(), colors.size());
+        for (int c = 0; c < colors.size(); c++) {
+            assertEquals(colors.get(c), image.getChannelColor(client, c));
+        }
+        assertEquals(colors, image.getChannelColors(client));
+    }
+
+
     @Test
     void testSetDescription() throws Exception {
         Image image = client.getImage(IMAGE1.id);
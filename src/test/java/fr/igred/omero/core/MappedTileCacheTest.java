@@ -0,0 +1,117 @@
+/*
+ *  Copyright (C) 2020-2025 GReD
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ * Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.igred.omero.core;
+
+
+import fr.igred.omero.BasicTest;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+
+class MappedTileCacheTest extends BasicTest {
+
+
+    @Test
+    void testPutAndGet() throws Exception {
+        Path            dir   = Files.createTempDirectory("tiles");
+        MappedTileCache cache = new MappedTileCache(dir, "localhost", 1024L);
+
+        TileCache.Key key    = new TileCache.Key(1L, 0, 1, 2, 3, 4, 2, 2);
+        byte[]        values = {1, 2, 3, 4};
+        cache.put(key, values);
+
+        assertArrayEquals(values, cache.get(new TileCache.Key(1L, 0, 1, 2, 3, 4, 2, 2)));
+        assertNull(cache.get(new TileCache.Key(1L, 0, 1, 2, 3, 4, 2, 1)));
+        cache.clear();
+    }
+
+
+    @Test
+    void testEviction() throws Exception {
+        Path            dir   = Files.createTempDirectory("tiles");
+        MappedTileCache cache = new MappedTileCache(dir, "localhost", 8L);
+
+        TileCache.Key key1 = new TileCache.Key(1L, 0, 0, 0, 0, 0, 2, 2);
+        TileCache.Key key2 = new TileCache.Key(1L, 1, 0, 0, 0, 0, 2, 2);
+        TileCache.Key key3 = new TileCache.Key(1L, 2, 0, 0, 0, 0, 2, 2);
+
+        cache.put(key1, new byte[4]);
+        cache.put(key2, new byte[4]);
+        assertNotNull(cache.get(key1));
+        cache.put(key3, new byte[4]);
+
+        assertNotNull(cache.get(key1));
+        assertNull(cache.get(key2));
+        assertNotNull(cache.get(key3));
+        assertEquals(8L, cache.getSize());
+        cache.clear();
+    }
+
+
+    @Test
+    void testReplace() throws Exception {
+        Path            dir   = Files.createTempDirectory("tiles");
+        MappedTileCache cache = new MappedTileCache(dir, "localhost", 1024L);
+
+        TileCache.Key key    = new TileCache.Key(1L, 0, 0, 0, 0, 0, 2, 2);
+        byte[]        values = {1, 2, 3};
+        cache.put(key, new byte[4]);
+        cache.put(key, values);
+
+        assertArrayEquals(values, cache.get(key));
+        assertEquals(3L, cache.getSize());
+        cache.clear();
+        assertEquals(0L, cache.getSize());
+    }
+
+
+    @Test
+    void testReload() throws Exception {
+        Path dir = Files.createTempDirectory("tiles");
+
+        TileCache.Key key    = new TileCache.Key(2L, 0, 0, 0, 0, 0, 1, 3);
+        byte[]        values = {5, 6, 7};
+        new MappedTileCache(dir, "localhost", 1024L).put(key, values);
+
+        MappedTileCache cache = new MappedTileCache(dir, "localhost", 1024L);
+        assertArrayEquals(values, cache.get(key));
+        assertEquals(3L, cache.getSize());
+        cache.clear();
+    }
+
+
+    @Test
+    void testServersAreSeparated() throws Exception {
+        Path dir = Files.createTempDirectory("tiles");
+
+        TileCache.Key key    = new TileCache.Key(2L, 0, 0, 0, 0, 0, 1, 3);
+        byte[]        values = {5, 6, 7};
+        new MappedTileCache(dir, "localhost", 1024L).put(key, values);
+
+        MappedTileCache cache = new MappedTileCache(dir, "otherhost", 1024L);
+        assertNull(cache.get(key));
+        assertEquals(0L, cache.getSize());
+    }
+
+}
@@ -19,10 +19,21 @@ package fr.igred.omero.core;
 
 
 import fr.igred.omero.UserTest;
+import fr.igred.omero.client.GatewayWrapper;
+import ij.ImagePlus;
+import omero.api.RawPixelsStorePrx;
 import org.junit.jupiter.api.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 
 class PixelsTest extends UserTest {
@@ -79,6 +90,274 @@ class PixelsTest extends UserTest {
     }
 
 
+    @Test
+    void testGetRawDataParallel() throws Exception {
+        Image  image  = client.getImage(IMAGE1.id);
+        Pixels pixels = image.getPixels();
+
+        byte[][][][] expected = pixels.getRawPixels(client, 1);
+        byte[][][][] actual   = pixels.getRawPixels(client, null, null, null, null, null, 1, 4);
+
+        assertArrayEquals(expected, actual);
+    }
+
+
+    @Test
+    void testGetAllPixelsParallel() throws Exception {
+        Image  image  = client.getImage(IMAGE1.id);
+        Pixels pixels = image.getPixels();
+
+        int[] xBounds = {0, 255};
+        int[] yBounds = {128, 383};
+        int[] cBounds = {0, 2};
+        int[] zBounds = {0, 2};
+        int[] tBounds = {1, 3};
+
+        double[][][][][] expected = pixels.getAllPixels(client, xBounds, yBounds, cBounds, zBounds, tBounds);
+        double[][][][][] actual   = pixels.getAllPixels(client, xBounds, yBounds, cBounds, zBounds, tBounds, 3);
+
+        assertArrayEquals(expected, actual);
+    }
+
+
+    @Test
+    void testForEachRawPlane() throws Exception {
+        Image  image  = client.getImage(IMAGE1.id);
+        Pixels pixels = image.getPixels();
+
+        int[] xBounds = {0, 255};
+        int[] yBounds = {0, 127};
+        int[] cBounds = {1, 2};
+        int[] zBounds = {0, 2};
+        int[] tBounds = {0, 1};
+
+        byte[][][][] expected = pixels.getRawPixels(client, xBounds, yBounds, cBounds, zBounds, tBounds, 1);
+
+        List<RawPlane> planes = new ArrayList<>(12);
+        pixels.forEachRawPlane(client, xBounds, yBounds, cBounds, zBounds, tBounds, 1, 2, planes::add);
+
+        assertEquals(12, planes.size());
+        for (RawPlane plane : planes) {
+            int c = plane.getPosition().getC() - cBounds[0];
+            int z = plane.getPosition().getZ() - zBounds[0];
+            int t = plane.getPosition().getT() - tBounds[0];
+            assertArrayEquals(expected[t][z][c], plane.getValues());
+        }
+    }
+
+
+    @Test
+    void testGetPlaneAsBytes() throws Exception {
+        Image  image  = client.getImage(IMAGE1.id);
+        Pixels pixels = image.getPixels();
+
+        int[] cBounds = {2, 2};
+        int[] zBounds = {1, 1};
+        int[] tBounds = {3, 3};
+
+        byte[][][][] expected = pixels.getRawPixels(client, null, null, cBounds, zBounds, tBounds, 1);
+        byte[]       actual   = pixels.getPlaneAsBytes(client, 2, 1, 3);
+
+        assertArrayEquals(expected[0][0][0], actual);
+    }
+
+
+    @Test
+    void testGetPlaneAsShortsWrongType() throws Exception {
+        Image  image  = client.getImage(IMAGE1.id);
+        Pixels pixels = image.getPixels();
+
+        assertThrows(IllegalStateException.class, () -> pixels.getPlaneAsShorts(client, 0, 0, 0));
+    }
+
+
+    @Test
+    void testGetRawDataWithTileCache() throws Exception {
+        Image  image  = client.getImage(IMAGE1.id);
+        Pixels pixels = image.getPixels();
+
+        int[] cBounds = {0, 1};
+        int[] zBounds = {0, 0};
+        int[] tBounds = {0, 0};
+
+        byte[][][][] expected = pixels.getRawPixels(client, null, null, cBounds, zBounds, tBounds, 1);
+
+        Path            dir   = Files.createTempDirectory("tiles");
+        MappedTileCache cache = new MappedTileCache(dir, client, 1024 * 1024L);
+        client.setTileCache(cache);
+        try {
+            byte[][][][] cold = pixels.getRawPixels(client, null, null, cBounds, zBounds, tBounds, 1);
+            assertEquals(2L * 512 * 512, cache.getSize());
+            byte[][][][] warm = pixels.getRawPixels(client, null, null, cBounds, zBounds, tBounds, 1);
+            assertArrayEquals(expected, cold);
+            assertArrayEquals(expected, warm);
+        } finally {
+            client.setTileCache(null);
+            cache.clear();
+        }
+    }
+
+
+    @Test
+    void testComputeChunkSize() {
+        int[] tile = {256, 256};
+        assertArrayEquals(new int[]{512, 512}, PixelsWrapper.computeChunkSize(512, 512, 1, tile, 1 << 20));
+        assertArrayEquals(new int[]{1024, 256}, PixelsWrapper.computeChunkSize(1024, 1024, 2, tile, 1 << 19));
+        assertArrayEquals(new int[]{256, 128}, PixelsWrapper.computeChunkSize(1024, 1024, 4, tile, 1 << 17));
+    }
+
+
+    @Test
+    void testGetRawDataSmallRequests() throws Exception {
+        Image  image  = client.getImage(IMAGE1.id);
+        Pixels pixels = image.getPixels();
+
+        int[] cBounds = {0, 1};
+        int[] zBounds = {0, 1};
+        int[] tBounds = {0, 0};
+
+        byte[][][][] expected = pixels.getRawPixels(client, null, null, cBounds, zBounds, tBounds, 1);
+
+        Image  image2  = client.getImage(IMAGE1.id);
+        Pixels pixels2 = image2.getPixels();
+        client.setTileSize(new int[]{100, 100});
+        client.setMaxTileBytes(25000L);
+        try {
+            byte[][][][] actual = pixels2.getRawPixels(client, null, null, cBounds, zBounds, tBounds, 1);
+            assertArrayEquals(expected, actual);
+        } finally {
+            client.setTileSize(null);
+            client.setMaxTileBytes(GatewayWrapper.DEFAULT_MAX_TILE_BYTES);
+        }
+    }
+
+
+    @Test
+    void testSetInvalidMaxTileBytes() {
+        assertThrows(IllegalArgumentException.class, () -> client.setMaxTileBytes(0L));
+        assertEquals(GatewayWrapper.DEFAULT_MAX_TILE_BYTES, client.getMaxTileBytes());
+    }
+
+
+    @Test
+    void testGetResolutionLevels() throws Exception {
+        Image  image  = client.getImage(IMAGE1.id);
+        Pixels pixels = image.getPixels();
+
+        List<int[]> levels = pixels.getResolutionLevels(client);
+
+        assertEquals(1, levels.size());
+        assertArrayEquals(new int[]{512, 512}, levels.get(0));
+        assertEquals(0, pixels.getResolutionLevel(client, 8));
+    }
+
+
+    @Test
+    void testGetRawPixelsAtLevel() throws Exception {
+        Image  image  = client.getImage(IMAGE1.id);
+        Pixels pixels = image.getPixels();
+
+        int[] xBounds = {10, 99};
+        int[] yBounds = {20, 119};
+        int[] cBounds = {0, 1};
+        int[] zBounds = {1, 2};
+        int[] tBounds = {0, 0};
+
+        byte[][][][] expected = pixels.getRawPixels(client, xBounds, yBounds, cBounds, zBounds, tBounds, 1);
+        byte[][][][] actual   = pixels.getRawPixelsAtLevel(client, 0, xBounds, yBounds, cBounds, zBounds, tBounds, 1);
+
+        assertArrayEquals(expected, actual);
+    }
+
+
+    @Test
+    void testGetRawDataWithPooledStores() throws Exception {
+        Pixels pixels1 = client.getImage(IMAGE1.id).getPixels();
+        Pixels pixels2 = client.getImage(IMAGE2.id).getPixels();
+
+        int[] cBounds = {0, 0};
+        int[] zBounds = {0, 0};
+        int[] tBounds = {0, 0};
+
+        GatewayWrapper gateway = (GatewayWrapper) client;
+        gateway.setPixelsStorePoolSize(0);
+        byte[][][][] expected1 = pixels1.getRawPixels(client, null, null, cBounds, zBounds, tBounds, 1);
+        byte[][][][] expected2 = pixels2.getRawPixels(client, null, null, cBounds, zBounds, tBounds, 1);
+
+        gateway.setPixelsStorePoolSize(1);
+        try {
+            // A single idle store is alternately reused and reset to the other pixels
+            for (int i = 0; i < 2; i++) {
+                byte[][][][] actual1 = pixels1.getRawPixels(client, null, null, cBounds, zBounds, tBounds, 1);
+                byte[][][][] actual2 = pixels2.getRawPixels(client, null, null, cBounds, zBounds, tBounds, 1);
+                assertArrayEquals(expected1, actual1);
+                assertArrayEquals(expected2, actual2);
+            }
+        } finally {
+            gateway.setPixelsStorePoolSize(8);
+        }
+    }
+
+
+    @Test
+    void testReleaseStoreAfterGroupSwitch() throws Exception {
+        Pixels pixels = client.getImage(IMAGE1.id).getPixels();
+
+        RawPixelsStorePrx store = client.getPixelsStore(pixels.getId());
+        client.switchGroup(client.getCurrentGroupId());
+        client.releasePixelsStore(pixels.getId(), store);
+        // The store borrowed before the switch is closed instead of being pooled
+        assertThrows(RuntimeException.class, store::getPixelsId);
+
+        int[] bounds = {0, 0};
+        assertEquals(1, pixels.getRawPixels(client, null, null, bounds, bounds, bounds, 1).length);
+    }
+
+
+    @Test
+    void testGetPlanesWithReadAhead() throws Exception {
+        Image  image  = client.getImage(IMAGE1.id);
+        Pixels pixels = image.getPixels();
+
+        int[] cBounds = {0, 1};
+        int[] zBounds = {0, 2};
+        int[] tBounds = {0, 3};
+
+        byte[][][][] expected = pixels.getRawPixels(client, null, null, cBounds, zBounds, tBounds, 1);
+
+        pixels.setReadAhead(2);
+        try {
+            assertEquals(2, pixels.getReadAhead());
+            for (int t = tBounds[0]; t <= tBounds[1]; t++) {
+                for (int z = zBounds[0]; z <= zBounds[1]; z++) {
+                    for (int c = cBounds[0]; c <= cBounds[1]; c++) {
+                        assertArrayEquals(expected[t][z][c], pixels.getPlaneAsBytes(client, c, z, t));
+                    }
+                }
+            }
+        } finally {
+            pixels.setReadAhead(0);
+        }
+        assertEquals(0, pixels.getReadAhead());
+    }
+
+
+    @Test
+    void testReadAheadKeptByImage() throws Exception {
+        Image image = client.getImage(IMAGE1.id);
+
+        image.getPixels().setReadAhead(2);
+        try {
+            assertSame(image.getPixels(), image.getPixels());
+            assertEquals(2, image.getPixels().getReadAhead());
+            ImagePlus imp = image.toImagePlus(client);
+            assertEquals(image.getPixels().getSizeZ(), imp.getNSlices());
+        } finally {
+            image.getPixels().setReadAhead(0);
+        }
+    }
+
+
     @Test
     void testGetRawDataBound() throws Exception {
         Image  image  = client.getImage(IMAGE1.id);
@@ -21,6 +21,7 @@ package fr.igred.omero.roi;
 import fr.igred.omero.UserTest;
 import fr.igred.omero.annotations.TagAnnotation;
 import fr.igred.omero.core.Image;
+import fr.igred.omero.core.ROISaveResult;
 import org.junit.jupiter.api.Test;
 
 import java.awt.geom.Point2D;
@@ -31,6 +32,7 @@ import java.util.List;
 import static fr.igred.omero.RemoteObject.getElementsOf;
 import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 class ROITest extends UserTest {
@@ -124,6 +126,29 @@ class ROITest extends UserTest {
     }
 
 
+    @Test
+    void testSaveROIsInChunks() throws Exception {
+        Image image = client.getImage(IMAGE1.id);
+
+        List<ROI> rois = new ArrayList<>(5);
+        for (int i = 0; i < 5; i++) {
+            Rectangle rectangle = new RectangleWrapper(i * 2, i * 2, 10, 10);
+            rois.add(new ROIWrapper(singletonList(rectangle)));
+        }
+
+        ROISaveResult result = image.saveROIs(client, rois, 2, 2);
+        List<ROI>     saved  = image.getROIs(client);
+        client.delete(result.getSaved());
+
+        assertTrue(result.isComplete());
+        assertEquals(3, result.getChunkCount());
+        assertEquals(3, result.getSavedChunkCount());
+        assertEquals(5, result.getSaved().size());
+        assertEquals(5, saved.size());
+        assertEquals(0, image.getROIs(client).size());
+    }
+
+
     @Test
     void testROI2() throws Exception {
         Image image = client.getImage(IMAGE1.id);